@@ -0,0 +1,81 @@
+package com.fleetsync.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.alert.AlertRuleEngine;
+import com.fleetsync.alert.AlertText;
+import com.fleetsync.model.TruckTelemetry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Shivam Srivastav
+ *         Alert evaluation per reading: the original list-building checks
+ *         against the compiled rule engine now used by TelemetryService.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlertBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int fleetSize;
+
+    private TruckTelemetry[] readings;
+    private AlertRuleEngine engine;
+    private int next;
+
+    @Setup
+    public void setup() {
+        readings = BenchmarkData.fleet(fleetSize, 11);
+        engine = new AlertRuleEngine(new ObjectMapper(), new ClassPathResource("alert-rules.json"));
+    }
+
+    @Benchmark
+    public Object legacyChecks() {
+        TruckTelemetry telemetry = nextReading();
+        List<String> alerts = new ArrayList<>();
+
+        if (telemetry.getSpeed() > 80) {
+            alerts.add("SPEEDING");
+        }
+        if (telemetry.getEngineTemp() > 100) {
+            alerts.add("OVERHEATING");
+        }
+        if (telemetry.getFuelLevel() < 10) {
+            alerts.add("LOW FUEL");
+        }
+
+        if (!alerts.isEmpty()) {
+            Map<String, Object> alertMessage = new HashMap<>();
+            alertMessage.put("truckId", telemetry.getTruckId());
+            alertMessage.put("alerts", alerts);
+            alertMessage.put("timestamp", System.currentTimeMillis());
+            String alertText = telemetry.getTruckId() + ": " + String.join(", ", alerts);
+            alertMessage.put("text", alertText);
+            return alertMessage;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String ruleEngine() {
+        TruckTelemetry telemetry = nextReading();
+        long raised = engine.evaluate(telemetry);
+        return raised == 0 ? null : AlertText.format(telemetry.getTruckId(), engine.types(raised));
+    }
+
+    private TruckTelemetry nextReading() {
+        TruckTelemetry telemetry = readings[next];
+        next = (next + 1) % readings.length;
+        return telemetry;
+    }
+}
@@ -0,0 +1,34 @@
+package com.fleetsync.benchmark;
+
+import com.fleetsync.model.TruckTelemetry;
+
+import java.util.Random;
+
+/**
+ * @author Shivam Srivastav
+ *         Deterministic telemetry fixtures so runs are comparable across machines.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static TruckTelemetry[] fleet(int size, long seed) {
+        Random random = new Random(seed);
+        TruckTelemetry[] fleet = new TruckTelemetry[size];
+        for (int i = 0; i < size; i++) {
+            fleet[i] = reading(String.format("TRUCK-%03d", i + 1), random);
+        }
+        return fleet;
+    }
+
+    static TruckTelemetry reading(String truckId, Random random) {
+        return new TruckTelemetry(truckId,
+                40.55 + random.nextDouble() * 0.35,
+                -74.15 + random.nextDouble() * 0.40,
+                random.nextDouble() * 95,
+                70 + random.nextDouble() * 45,
+                random.nextDouble() * 100,
+                1_700_000_000_000L + random.nextInt(86_400_000));
+    }
+}
@@ -0,0 +1,89 @@
+package com.fleetsync.benchmark;
+
+import io.moquette.broker.Server;
+import io.moquette.broker.config.MemoryConfig;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * @author Shivam Srivastav
+ *         In-process replacements for the docker-compose services: a KRaft
+ *         Kafka broker, a Moquette MQTT broker and an embedded PostgreSQL.
+ *         {@link #applicationProperties()} points the application at them.
+ *
+ *         Passing a JDBC url skips the embedded PostgreSQL and uses that
+ *         database instead, e.g. the one from docker-compose.
+ */
+final class EmbeddedStandIns implements AutoCloseable {
+
+    private final EmbeddedKafkaKraftBroker kafka;
+    private final Server mqtt;
+    private final int mqttPort;
+    private final EmbeddedPostgres postgres;
+    private final String jdbcUrl;
+    private final String jdbcUser;
+    private final String jdbcPassword;
+
+    EmbeddedStandIns(int partitions, String jdbcUrl, String jdbcUser, String jdbcPassword) throws IOException {
+        // Topics are left to the application's NewTopic beans, so their config (e.g. compaction) matches production
+        kafka = new EmbeddedKafkaKraftBroker(1, partitions);
+        kafka.afterPropertiesSet();
+
+        mqttPort = freePort();
+        Properties mqttConfig = new Properties();
+        mqttConfig.setProperty("host", "127.0.0.1");
+        mqttConfig.setProperty("port", Integer.toString(mqttPort));
+        mqttConfig.setProperty("allow_anonymous", "true");
+        mqttConfig.setProperty("persistence_enabled", "false");
+        mqtt = new Server();
+        mqtt.startServer(new MemoryConfig(mqttConfig));
+
+        if (jdbcUrl == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            this.jdbcUrl = postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+            this.jdbcUser = "postgres";
+            this.jdbcPassword = "";
+        } else {
+            postgres = null;
+            this.jdbcUrl = jdbcUrl;
+            this.jdbcUser = jdbcUser;
+            this.jdbcPassword = jdbcPassword;
+        }
+    }
+
+    Map<String, Object> applicationProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.kafka.bootstrap-servers", kafka.getBrokersAsString());
+        properties.put("fleetsync.mqtt.broker-url", "tcp://127.0.0.1:" + mqttPort);
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", jdbcUser);
+        properties.put("spring.datasource.password", jdbcPassword);
+        return properties;
+    }
+
+    String describe() {
+        return "Kafka " + kafka.getBrokersAsString() + ", MQTT tcp://127.0.0.1:" + mqttPort + ", PostgreSQL "
+                + (postgres != null ? "embedded" : jdbcUrl);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mqtt.stopServer();
+        kafka.destroy();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.fleetsync.benchmark;
+
+import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.stats.FleetAggregator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Shivam Srivastav
+ *         Fleet statistics at different fleet sizes: the original full scan over
+ *         the latest-telemetry map against reading the incrementally maintained
+ *         FleetAggregator, plus what the aggregator costs per ingested reading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FleetStatsBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int fleetSize;
+
+    private final Map<String, TruckTelemetry> fleet = new ConcurrentHashMap<>();
+    private final FleetAggregator aggregator = new FleetAggregator();
+    private TruckTelemetry[] updates;
+    private int next;
+
+    @Setup
+    public void setup() {
+        for (TruckTelemetry telemetry : BenchmarkData.fleet(fleetSize, 31)) {
+            fleet.put(telemetry.getTruckId(), telemetry);
+            aggregator.update(null, telemetry);
+        }
+        // A second round of readings for the same trucks, replayed by aggregatorUpdate
+        Random random = new Random(37);
+        updates = new TruckTelemetry[Math.min(fleetSize, 10_000)];
+        for (int i = 0; i < updates.length; i++) {
+            updates[i] = BenchmarkData.reading(String.format("TRUCK-%03d", i + 1), random);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyScan() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("activeTrucks", fleet.size());
+
+        double avgSpeed = fleet.values().stream().mapToDouble(TruckTelemetry::getSpeed).average().orElse(0.0);
+        double avgTemp = fleet.values().stream().mapToDouble(TruckTelemetry::getEngineTemp).average().orElse(0.0);
+        double avgFuel = fleet.values().stream().mapToDouble(TruckTelemetry::getFuelLevel).average().orElse(0.0);
+
+        stats.put("averageSpeed", Math.round(avgSpeed * 10.0) / 10.0);
+        stats.put("averageEngineTemp", Math.round(avgTemp * 10.0) / 10.0);
+        stats.put("averageFuelLevel", Math.round(avgFuel * 10.0) / 10.0);
+        return stats;
+    }
+
+    @Benchmark
+    public FleetAggregator.Snapshot aggregatorSnapshot() {
+        return aggregator.snapshot();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public TruckTelemetry aggregatorUpdate() {
+        TruckTelemetry current = updates[next];
+        next = (next + 1) % updates.length;
+        TruckTelemetry previous = fleet.put(current.getTruckId(), current);
+        aggregator.update(previous, current);
+        return previous;
+    }
+}
@@ -0,0 +1,57 @@
+package com.fleetsync.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.codec.TelemetryCodec;
+import com.fleetsync.model.TruckTelemetry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Shivam Srivastav
+ *         Payload decoding as done at the top of TelemetryService.handleMessage.
+ *         The truck id shape matters for the binary codec: "TRUCK-nnn" ids are
+ *         packed as a prefix tag and a number, anything else is inlined.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({ "json", "binary" })
+    public String payloadFormat;
+
+    @Param({ "TRUCK-001", "REEFER-NORTH-000417" })
+    public String truckId;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws IOException {
+        TruckTelemetry telemetry = BenchmarkData.reading(truckId, new Random(7));
+        payload = "binary".equals(payloadFormat)
+                ? TelemetryCodec.encode(telemetry)
+                : objectMapper.writeValueAsBytes(telemetry);
+    }
+
+    @Benchmark
+    public TruckTelemetry decode() throws IOException {
+        return TelemetryCodec.isBinary(payload)
+                ? TelemetryCodec.decode(payload)
+                : objectMapper.readValue(payload, TruckTelemetry.class);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        TruckTelemetry telemetry = new TruckTelemetry(truckId, 40.7128, -74.0060, 55.2, 88.4, 63.1, 1_700_000_000_000L);
+        return "binary".equals(payloadFormat)
+                ? TelemetryCodec.encode(telemetry)
+                : objectMapper.writeValueAsBytes(telemetry);
+    }
+}
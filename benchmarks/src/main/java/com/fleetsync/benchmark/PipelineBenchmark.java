@@ -0,0 +1,292 @@
+package com.fleetsync.benchmark;
+
+import com.fleetsync.FleetSyncApplication;
+import com.fleetsync.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Shivam Srivastav
+ *         End-to-end pipeline benchmark: starts the full application against
+ *         {@link EmbeddedStandIns}, drives it with the built-in
+ *         {@code TruckSimulator} over MQTT and subscribes a STOMP client to
+ *         {@code /topic/telemetry}, so every stage from MQTT receive to the
+ *         WebSocket send and the database commit does real work.
+ *
+ *         After a warm-up, the {@code fleetsync.pipeline.latency} timers are
+ *         sampled at the start and end of the measurement window. Throughput
+ *         is the count delta per stage; p50/p99/p999 are read from the delta
+ *         of the cumulative percentile histogram, so they cover only the
+ *         measured window and are reported as the upper bound of the bucket
+ *         they fall in.
+ *
+ *         Usage (see benchmarks/results/README.md):
+ *         <pre>
+ *         --trucks=1000 --rate=5000 --warmup=20 --duration=60
+ *         --min-throughput=4500 --max-p99-ms=kafka_ack=50,db_commit=2000
+ *         --jdbc-url=... --jdbc-user=... --jdbc-password=... --json=results/e2e.json
+ *         </pre>
+ *         Exits with status 1 when a budget is given and missed.
+ */
+public final class PipelineBenchmark {
+
+    private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+
+    private PipelineBenchmark() {
+    }
+
+    private record StageResult(String stage, long count, double perSecond, double[] latencyMs) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int trucks = Integer.parseInt(options.getOrDefault("trucks", "1000"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "5000"));
+        int shards = Integer.parseInt(options.getOrDefault("shards", "4"));
+        int partitions = Integer.parseInt(options.getOrDefault("partitions", "6"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "20"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        String payloadFormat = options.getOrDefault("payload-format", "binary");
+        double minThroughput = Double.parseDouble(options.getOrDefault("min-throughput", "0"));
+        Map<String, Double> maxP99 = budgets(options.get("max-p99-ms"));
+
+        Path workDir = Files.createTempDirectory("fleetsync-e2e");
+        try (EmbeddedStandIns standIns = new EmbeddedStandIns(partitions, options.get("jdbc-url"),
+                options.getOrDefault("jdbc-user", "fleetsync"), options.getOrDefault("jdbc-password", "fleetsync123"))) {
+            System.out.println("Stand-ins: " + standIns.describe());
+
+            Map<String, Object> properties = standIns.applicationProperties();
+            properties.put("server.port", 0);
+            properties.put("fleetsync.simulator.enabled", true);
+            properties.put("fleetsync.simulator.mode", "mqtt");
+            properties.put("fleetsync.simulator.trucks", trucks);
+            properties.put("fleetsync.simulator.target-rate", rate);
+            properties.put("fleetsync.simulator.shards", shards);
+            properties.put("fleetsync.simulator.payload-format", payloadFormat);
+            properties.put("fleetsync.kafka.partitions", partitions);
+            properties.put("fleetsync.snapshot.path", workDir.resolve("live-fleet.snapshot").toString());
+            properties.put("fleetsync.producer.spool.dir", workDir.resolve("spool").toString());
+            properties.put("logging.level.root", "WARN");
+
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(FleetSyncApplication.class)
+                    .properties(properties)
+                    .run();
+            try {
+                LongAdder frames = new LongAdder();
+                StompSession session = subscribe(context.getEnvironment().getProperty("local.server.port"), frames);
+
+                MeterRegistry registry = context.getBean(MeterRegistry.class);
+                System.out.printf("Warming up for %d s at %.0f msg/s over %d trucks...%n", warmupSeconds, rate, trucks);
+                TimeUnit.SECONDS.sleep(warmupSeconds);
+
+                Map<String, HistogramSnapshot> before = snapshots(registry);
+                double publishedBefore = published(registry);
+                long framesBefore = frames.sum();
+                long start = System.nanoTime();
+                System.out.printf("Measuring for %d s...%n", durationSeconds);
+                TimeUnit.SECONDS.sleep(durationSeconds);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                Map<String, HistogramSnapshot> after = snapshots(registry);
+                double offered = (published(registry) - publishedBefore) / seconds;
+                double framesPerSecond = (frames.sum() - framesBefore) / seconds;
+                session.disconnect();
+
+                List<StageResult> results = new ArrayList<>();
+                for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+                    results.add(result(stage.tag(), before.get(stage.tag()), after.get(stage.tag()), seconds));
+                }
+
+                List<String> failures = check(results, minThroughput, maxP99);
+                print(results, offered, framesPerSecond, failures);
+                if (options.containsKey("json")) {
+                    writeJson(Path.of(options.get("json")), options, offered, framesPerSecond, results, failures);
+                }
+                if (!failures.isEmpty()) {
+                    System.exit(1);
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static StompSession subscribe(String port, LongAdder frames) throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        // SockJS endpoints also accept a plain WebSocket on <endpoint>/websocket
+        StompSession session = client.connectAsync("ws://localhost:" + port + "/ws-fleet/websocket",
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+        session.subscribe("/topic/telemetry", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                frames.increment();
+            }
+        });
+        return session;
+    }
+
+    private static Map<String, HistogramSnapshot> snapshots(MeterRegistry registry) {
+        Map<String, HistogramSnapshot> snapshots = new LinkedHashMap<>();
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            Timer timer = registry.find(PipelineMetrics.LATENCY_METRIC).tag("stage", stage.tag()).timer();
+            if (timer != null) {
+                snapshots.put(stage.tag(), timer.takeSnapshot());
+            }
+        }
+        return snapshots;
+    }
+
+    private static double published(MeterRegistry registry) {
+        Counter counter = registry.find("fleetsync.simulator.published").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static StageResult result(String stage, HistogramSnapshot before, HistogramSnapshot after, double seconds) {
+        if (before == null || after == null) {
+            return new StageResult(stage, 0, 0, new double[QUANTILES.length]);
+        }
+        long count = after.count() - before.count();
+        CountAtBucket[] start = before.histogramCounts();
+        CountAtBucket[] end = after.histogramCounts();
+
+        // Buckets are cumulative (Prometheus "le" semantics), both across values and over time
+        double[] latencyMs = new double[QUANTILES.length];
+        for (int q = 0; q < QUANTILES.length; q++) {
+            double target = QUANTILES[q] * count;
+            latencyMs[q] = Double.NaN;
+            for (int b = 0; b < end.length && b < start.length; b++) {
+                if (count > 0 && end[b].count() - start[b].count() >= target) {
+                    latencyMs[q] = end[b].bucket(TimeUnit.MILLISECONDS);
+                    break;
+                }
+            }
+        }
+        return new StageResult(stage, count, count / seconds, latencyMs);
+    }
+
+    private static List<String> check(List<StageResult> results, double minThroughput, Map<String, Double> maxP99) {
+        List<String> failures = new ArrayList<>();
+        for (StageResult result : results) {
+            if (minThroughput > 0 && result.perSecond() < minThroughput) {
+                failures.add(String.format(Locale.ROOT, "%s throughput %.0f msg/s < %.0f", result.stage(),
+                        result.perSecond(), minThroughput));
+            }
+            Double budget = maxP99.get(result.stage());
+            // NaN (no samples, or beyond the last bucket) fails the budget too
+            if (budget != null && !(result.latencyMs()[1] <= budget)) {
+                failures.add(String.format(Locale.ROOT, "%s p99 %.1f ms > %.1f ms", result.stage(),
+                        result.latencyMs()[1], budget));
+            }
+        }
+        return failures;
+    }
+
+    private static void print(List<StageResult> results, double offered, double framesPerSecond, List<String> failures) {
+        System.out.printf(Locale.ROOT, "%nOffered load: %.0f msg/s, WebSocket frames received: %.1f/s%n%n",
+                offered, framesPerSecond);
+        System.out.printf(Locale.ROOT, "%-18s %12s %12s %10s %10s %10s%n", "stage", "count", "msg/s", "p50 ms",
+                "p99 ms", "p999 ms");
+        for (StageResult result : results) {
+            System.out.printf(Locale.ROOT, "%-18s %12d %12.0f %10.1f %10.1f %10.1f%n", result.stage(), result.count(),
+                    result.perSecond(), result.latencyMs()[0], result.latencyMs()[1], result.latencyMs()[2]);
+        }
+        System.out.println();
+        if (failures.isEmpty()) {
+            System.out.println("PASS");
+        } else {
+            failures.forEach(failure -> System.out.println("FAIL " + failure));
+        }
+    }
+
+    private static void writeJson(Path path, Map<String, String> options, double offered, double framesPerSecond,
+            List<StageResult> results, List<String> failures) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"options\": {");
+        int i = 0;
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            if (option.getKey().startsWith("jdbc-password")) {
+                continue;
+            }
+            json.append(i++ == 0 ? "" : ", ").append('"').append(option.getKey()).append("\": \"")
+                    .append(option.getValue().replace("\"", "\\\"")).append('"');
+        }
+        json.append("},\n");
+        json.append(String.format(Locale.ROOT, "  \"offeredPerSecond\": %.1f,%n", offered));
+        json.append(String.format(Locale.ROOT, "  \"websocketFramesPerSecond\": %.1f,%n", framesPerSecond));
+        json.append("  \"stages\": [\n");
+        for (int s = 0; s < results.size(); s++) {
+            StageResult result = results.get(s);
+            json.append(String.format(Locale.ROOT,
+                    "    { \"stage\": \"%s\", \"count\": %d, \"perSecond\": %.1f, \"p50Ms\": %s, \"p99Ms\": %s, \"p999Ms\": %s }%s%n",
+                    result.stage(), result.count(), result.perSecond(), number(result.latencyMs()[0]),
+                    number(result.latencyMs()[1]), number(result.latencyMs()[2]), s < results.size() - 1 ? "," : ""));
+        }
+        json.append("  ],\n  \"passed\": ").append(failures.isEmpty()).append("\n}\n");
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        Files.writeString(path, json);
+        System.out.println("Results written to " + path);
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.1f", value);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals),
+                    equals < 0 ? "true" : arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    // "kafka_ack=50,db_commit=2000" -> stage tag to p99 budget in ms
+    private static Map<String, Double> budgets(String spec) {
+        Map<String, Double> budgets = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return budgets;
+        }
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected stage=ms in --max-p99-ms, got: " + entry);
+            }
+            budgets.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return budgets;
+    }
+}
@@ -0,0 +1,49 @@
+package com.fleetsync.benchmark;
+
+import com.fleetsync.entity.TruckTelemetryEntity;
+import com.fleetsync.model.TruckTelemetry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Shivam Srivastav
+ *         TruckTelemetry to TruckTelemetryEntity mapping for one consumer batch,
+ *         the per-row allocation the JPA save path paid before the JDBC sink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SinkMappingBenchmark {
+
+    @Param({ "1", "100", "500" })
+    public int batchSize;
+
+    private List<TruckTelemetry> batch;
+
+    @Setup
+    public void setup() {
+        batch = List.of(BenchmarkData.fleet(batchSize, 23));
+    }
+
+    @Benchmark
+    public List<TruckTelemetryEntity> toEntities() {
+        List<TruckTelemetryEntity> entities = new ArrayList<>(batch.size());
+        for (TruckTelemetry telemetry : batch) {
+            entities.add(new TruckTelemetryEntity(
+                    telemetry.getTruckId(),
+                    telemetry.getLatitude(),
+                    telemetry.getLongitude(),
+                    telemetry.getSpeed(),
+                    telemetry.getEngineTemp(),
+                    telemetry.getFuelLevel(),
+                    telemetry.getTimestamp()));
+        }
+        return entities;
+    }
+}
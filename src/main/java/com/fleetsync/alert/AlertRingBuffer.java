@@ -0,0 +1,78 @@
+package com.fleetsync.alert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free, fixed-capacity ring of the most recent entries. Readers never
+ * block writers and skip slots whose sequence no longer matches.
+ *
+ * @author Shivam Srivastav
+ */
+public class AlertRingBuffer<T> {
+
+    private record Slot<T>(long sequence, T value) {
+    }
+
+    private final int capacity;
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    public AlertRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    public void add(T value) {
+        long sequence = nextSequence.getAndIncrement();
+        int index = (int) (sequence % capacity);
+        Slot<T> slot = new Slot<>(sequence, value);
+
+        // A writer that lapped us may already own the slot; never overwrite a newer entry
+        while (true) {
+            Slot<T> current = slots.get(index);
+            if (current != null && current.sequence() > sequence) {
+                return;
+            }
+            if (slots.compareAndSet(index, current, slot)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} entries, newest first.
+     */
+    public List<T> snapshot(int limit) {
+        limit = Math.max(0, limit);
+        long head = nextSequence.get();
+        long oldest = Math.max(0, head - capacity);
+        List<T> result = new ArrayList<>((int) Math.min(limit, head - oldest));
+
+        for (long sequence = head - 1; sequence >= oldest && result.size() < limit; sequence--) {
+            Slot<T> slot = slots.get((int) (sequence % capacity));
+            // Skip slots still being written or already overwritten by a newer lap
+            if (slot != null && slot.sequence() == sequence) {
+                result.add(slot.value());
+            }
+        }
+        return result;
+    }
+
+    public List<T> snapshot() {
+        return snapshot(capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long totalAdded() {
+        return nextSequence.get();
+    }
+}
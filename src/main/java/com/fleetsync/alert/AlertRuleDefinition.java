@@ -0,0 +1,28 @@
+package com.fleetsync.alert;
+
+import java.util.List;
+
+/**
+ * One threshold rule as written in the rules file, e.g.
+ * <pre>
+ * { "type": "SPEEDING", "metric": "speed", "condition": "above",
+ *   "raise": 80, "clear": 75, "debounce": 2,
+ *   "overrides": [ { "truckIdPrefix": "REEFER-", "raise": 70, "clear": 65 } ] }
+ * </pre>
+ *
+ * @author Shivam Srivastav
+ */
+public record AlertRuleDefinition(String type, String metric, String condition, double raise, Double clear,
+        Integer debounce, List<ThresholdOverride> overrides) {
+
+    public record ThresholdOverride(List<String> truckIds, String truckIdPrefix, double raise, Double clear) {
+
+        boolean matches(String truckId) {
+            return (truckIds != null && truckIds.contains(truckId))
+                    || (truckIdPrefix != null && truckId.startsWith(truckIdPrefix));
+        }
+    }
+
+    public record RuleSet(List<AlertRuleDefinition> rules) {
+    }
+}
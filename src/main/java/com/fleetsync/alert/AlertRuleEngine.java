@@ -0,0 +1,211 @@
+package com.fleetsync.alert;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.model.TruckTelemetry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Threshold alert rules compiled into flat arrays, with per-truck debounce
+ * and hysteresis. Readings for one truck must not be evaluated concurrently.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class AlertRuleEngine {
+
+    private static final int SPEED = 0;
+    private static final int ENGINE_TEMP = 1;
+    private static final int FUEL_LEVEL = 2;
+    private static final int MAX_RULES = Long.SIZE;
+
+    private final String[] types;
+    private final int[] metrics;
+    private final boolean[] above;
+    private final int[] debounce;
+    private final Thresholds defaultThresholds;
+    private final List<AlertRuleDefinition> definitions;
+
+    private final Map<String, TruckState> states = new ConcurrentHashMap<>();
+
+    // Raise/clear thresholds resolved for one truck (shared by every truck without overrides)
+    private record Thresholds(double[] raise, double[] clear) {
+    }
+
+    private static final class TruckState {
+        final Thresholds thresholds;
+        final int[] streak;
+        long active;
+
+        TruckState(Thresholds thresholds, int rules) {
+            this.thresholds = thresholds;
+            this.streak = new int[rules];
+        }
+    }
+
+    @Autowired
+    public AlertRuleEngine(ObjectMapper objectMapper,
+            @Value("${fleetsync.alerts.rules-location:classpath:alert-rules.json}") Resource rulesLocation) {
+        this(load(objectMapper, rulesLocation));
+    }
+
+    public AlertRuleEngine(List<AlertRuleDefinition> definitions) {
+        if (definitions.size() > MAX_RULES) {
+            throw new IllegalArgumentException("At most " + MAX_RULES + " alert rules are supported");
+        }
+        int n = definitions.size();
+        this.definitions = List.copyOf(definitions);
+        this.types = new String[n];
+        this.metrics = new int[n];
+        this.above = new boolean[n];
+        this.debounce = new int[n];
+        double[] raise = new double[n];
+        double[] clear = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            AlertRuleDefinition rule = definitions.get(i);
+            types[i] = rule.type();
+            metrics[i] = metricIndex(rule.metric());
+            above[i] = conditionIsAbove(rule.condition());
+            debounce[i] = rule.debounce() != null ? Math.max(1, rule.debounce()) : 1;
+            raise[i] = rule.raise();
+            clear[i] = rule.clear() != null ? rule.clear() : rule.raise();
+        }
+        this.defaultThresholds = new Thresholds(raise, clear);
+    }
+
+    /**
+     * @return bit i is set when rule i was raised by this reading
+     */
+    public long evaluate(TruckTelemetry telemetry) {
+        TruckState state = stateFor(telemetry.getTruckId());
+        double[] raise = state.thresholds.raise();
+        double[] clear = state.thresholds.clear();
+        long raised = 0;
+
+        for (int i = 0; i < types.length; i++) {
+            double value = metricValue(metrics[i], telemetry);
+            long bit = 1L << i;
+
+            if ((state.active & bit) == 0) {
+                boolean breached = above[i] ? value > raise[i] : value < raise[i];
+                if (!breached) {
+                    state.streak[i] = 0;
+                } else if (++state.streak[i] >= debounce[i]) {
+                    state.streak[i] = 0;
+                    state.active |= bit;
+                    raised |= bit;
+                }
+            } else {
+                boolean cleared = above[i] ? value <= clear[i] : value >= clear[i];
+                if (cleared) {
+                    state.active &= ~bit;
+                }
+            }
+        }
+        return raised;
+    }
+
+    /**
+     * Alert types for the bits returned by {@link #evaluate}.
+     */
+    public List<String> types(long raised) {
+        List<String> result = new ArrayList<>(Long.bitCount(raised));
+        for (int i = 0; i < types.length; i++) {
+            if ((raised & (1L << i)) != 0) {
+                result.add(types[i]);
+            }
+        }
+        return result;
+    }
+
+    public List<AlertRuleDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    private TruckState stateFor(String truckId) {
+        TruckState state = states.get(truckId);
+        if (state == null) {
+            state = new TruckState(resolveThresholds(truckId), types.length);
+            TruckState existing = states.putIfAbsent(truckId, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        return state;
+    }
+
+    private Thresholds resolveThresholds(String truckId) {
+        double[] raise = null;
+        double[] clear = null;
+        for (int i = 0; i < definitions.size(); i++) {
+            List<AlertRuleDefinition.ThresholdOverride> overrides = definitions.get(i).overrides();
+            if (overrides == null) {
+                continue;
+            }
+            for (AlertRuleDefinition.ThresholdOverride override : overrides) {
+                if (override.matches(truckId)) {
+                    if (raise == null) {
+                        raise = defaultThresholds.raise().clone();
+                        clear = defaultThresholds.clear().clone();
+                    }
+                    raise[i] = override.raise();
+                    clear[i] = override.clear() != null ? override.clear() : override.raise();
+                    break;
+                }
+            }
+        }
+        return raise == null ? defaultThresholds : new Thresholds(raise, clear);
+    }
+
+    private static double metricValue(int metric, TruckTelemetry telemetry) {
+        switch (metric) {
+            case SPEED:
+                return telemetry.getSpeed();
+            case ENGINE_TEMP:
+                return telemetry.getEngineTemp();
+            default:
+                return telemetry.getFuelLevel();
+        }
+    }
+
+    private static int metricIndex(String metric) {
+        switch (metric) {
+            case "speed":
+                return SPEED;
+            case "engineTemp":
+                return ENGINE_TEMP;
+            case "fuelLevel":
+                return FUEL_LEVEL;
+            default:
+                throw new IllegalArgumentException("Unknown alert metric: " + metric);
+        }
+    }
+
+    private static boolean conditionIsAbove(String condition) {
+        if ("above".equalsIgnoreCase(condition)) {
+            return true;
+        }
+        if ("below".equalsIgnoreCase(condition)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Alert condition must be 'above' or 'below': " + condition);
+    }
+
+    private static List<AlertRuleDefinition> load(ObjectMapper objectMapper, Resource location) {
+        try (InputStream in = location.getInputStream()) {
+            return objectMapper.readValue(in, AlertRuleDefinition.RuleSet.class).rules();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load alert rules from " + location, e);
+        }
+    }
+}
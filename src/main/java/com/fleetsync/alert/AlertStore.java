@@ -0,0 +1,85 @@
+package com.fleetsync.alert;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent alerts in lock-free rings: one for the fleet and, when enabled, one
+ * per truck and per alert type.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class AlertStore {
+
+    private final AlertRingBuffer<String> recent;
+    private final boolean indexByKey;
+    private final int perKeyCapacity;
+    private final Map<String, AlertRingBuffer<String>> byTruck = new ConcurrentHashMap<>();
+    private final Map<String, AlertRingBuffer<String>> byType = new ConcurrentHashMap<>();
+
+    public AlertStore(@Value("${fleetsync.alerts.capacity:50}") int capacity,
+            @Value("${fleetsync.alerts.per-key-capacity:20}") int perKeyCapacity,
+            @Value("${fleetsync.alerts.index-by-key:true}") boolean indexByKey) {
+        this.recent = new AlertRingBuffer<>(capacity);
+        this.perKeyCapacity = perKeyCapacity;
+        this.indexByKey = indexByKey;
+    }
+
+    public void add(String alert) {
+        recent.add(alert);
+        if (!indexByKey) {
+            return;
+        }
+
+        String truckId = AlertText.truckId(alert);
+        if (truckId != null) {
+            byTruck.computeIfAbsent(truckId, key -> new AlertRingBuffer<>(perKeyCapacity)).add(alert);
+        }
+        for (String type : AlertText.types(alert)) {
+            byType.computeIfAbsent(type, key -> new AlertRingBuffer<>(perKeyCapacity)).add(alert);
+        }
+    }
+
+    public List<String> recent() {
+        return recent.snapshot();
+    }
+
+    /**
+     * Newest first; either filter may be null.
+     */
+    public List<String> recent(String truckId, String type, int limit) {
+        if (truckId == null && type == null) {
+            return recent.snapshot(limit);
+        }
+        if (!indexByKey) {
+            return filter(recent.snapshot(), truckId, type, limit);
+        }
+
+        AlertRingBuffer<String> ring = truckId != null ? byTruck.get(truckId) : byType.get(type);
+        if (ring == null) {
+            return List.of();
+        }
+        // Per-truck ring is small, so a type filter on top of it is a short scan
+        return truckId != null && type != null ? filter(ring.snapshot(), null, type, limit) : ring.snapshot(limit);
+    }
+
+    private static List<String> filter(List<String> alerts, String truckId, String type, int limit) {
+        List<String> result = new ArrayList<>();
+        for (String alert : alerts) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if ((truckId == null || truckId.equals(AlertText.truckId(alert)))
+                    && (type == null || AlertText.types(alert).contains(type))) {
+                result.add(alert);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.fleetsync.alert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Alert message text on fleet-alerts, e.g. {@code "TRUCK-001: SPEEDING, LOW
+ * FUEL"}.
+ *
+ * @author Shivam Srivastav
+ */
+public final class AlertText {
+
+    private static final String TRUCK_SEPARATOR = ": ";
+    private static final String TYPE_SEPARATOR = ", ";
+    private static final String DETAIL_START = " (";
+
+    private AlertText() {
+    }
+
+    public static String format(String truckId, List<String> types) {
+        return truckId + TRUCK_SEPARATOR + String.join(TYPE_SEPARATOR, types);
+    }
+
+    public static String truckId(String alert) {
+        int end = alert.indexOf(TRUCK_SEPARATOR);
+        return end < 0 ? null : alert.substring(0, end);
+    }
+
+    public static List<String> types(String alert) {
+        int start = alert.indexOf(TRUCK_SEPARATOR);
+        List<String> types = new ArrayList<>(2);
+        if (start < 0) {
+            return types;
+        }
+        for (String part : alert.substring(start + TRUCK_SEPARATOR.length()).split(TYPE_SEPARATOR)) {
+            int detail = part.indexOf(DETAIL_START);
+            String type = (detail < 0 ? part : part.substring(0, detail)).trim();
+            if (!type.isEmpty()) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+}
@@ -0,0 +1,185 @@
+package com.fleetsync.codec;
+
+import com.fleetsync.model.TruckTelemetry;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link TruckTelemetry}:
+ * <pre>
+ * magic(1) version(1) idTag(1) id(...) latitude(8) longitude(8)
+ * speed(8) engineTemp(8) fuelLevel(8) timestamp(8)
+ * </pre>
+ * Ids of the form PREFIX + digits are packed as a varint, others are stored
+ * inline as UTF-8. The magic byte never starts a JSON document, so both
+ * encodings can share a topic.
+ *
+ * @author Shivam Srivastav
+ */
+public final class TelemetryCodec {
+
+    public static final byte MAGIC = (byte) 0xF5;
+    public static final byte VERSION = 1;
+    public static final String CONTENT_TYPE = "application/vnd.fleetsync.telemetry.v1";
+
+    // Truck id prefixes known to both sides; the position in this array is the wire code
+    private static final String[] ID_PREFIXES = { "TRUCK-" };
+
+    private static final byte ID_INLINE = 0;
+    private static final int MAX_PACKED_DIGITS = 18;
+    private static final int FIXED_FIELDS_BYTES = 6 * 8;
+
+    private TelemetryCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 2 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(TruckTelemetry telemetry) {
+        String truckId = telemetry.getTruckId();
+        int prefix = packablePrefix(truckId);
+
+        byte[] inlineId = null;
+        long packedNumber = 0;
+        int digits = 0;
+        int idBytes;
+        if (prefix >= 0) {
+            digits = truckId.length() - ID_PREFIXES[prefix].length();
+            packedNumber = Long.parseLong(truckId, ID_PREFIXES[prefix].length(), truckId.length(), 10);
+            idBytes = 1 + varintSize(packedNumber);
+        } else {
+            inlineId = truckId.getBytes(StandardCharsets.UTF_8);
+            idBytes = varintSize(inlineId.length) + inlineId.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(3 + idBytes + FIXED_FIELDS_BYTES);
+        buffer.put(MAGIC).put(VERSION);
+        if (prefix >= 0) {
+            buffer.put((byte) (prefix + 1));
+            buffer.put((byte) digits);
+            putVarint(buffer, packedNumber);
+        } else {
+            buffer.put(ID_INLINE);
+            putVarint(buffer, inlineId.length);
+            buffer.put(inlineId);
+        }
+        buffer.putDouble(telemetry.getLatitude());
+        buffer.putDouble(telemetry.getLongitude());
+        buffer.putDouble(telemetry.getSpeed());
+        buffer.putDouble(telemetry.getEngineTemp());
+        buffer.putDouble(telemetry.getFuelLevel());
+        buffer.putLong(telemetry.getTimestamp());
+        return buffer.array();
+    }
+
+    public static TruckTelemetry decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Not a binary telemetry payload");
+        }
+        try {
+            return decode(data, ByteBuffer.wrap(data));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated telemetry payload of " + data.length + " bytes", e);
+        }
+    }
+
+    private static TruckTelemetry decode(byte[] data, ByteBuffer buffer) {
+        buffer.get(); // magic
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported telemetry encoding version " + version);
+        }
+
+        String truckId;
+        int tag = buffer.get();
+        if (tag == ID_INLINE) {
+            long length = getVarint(buffer);
+            if (length > buffer.remaining()) {
+                throw new IllegalArgumentException("Truck id length " + length + " exceeds the payload");
+            }
+            truckId = new String(data, buffer.position(), (int) length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + (int) length);
+        } else if (tag > 0 && tag <= ID_PREFIXES.length) {
+            int digits = buffer.get();
+            if (digits < 1 || digits > MAX_PACKED_DIGITS) {
+                throw new IllegalArgumentException("Invalid truck id digit count " + digits);
+            }
+            truckId = ID_PREFIXES[tag - 1] + zeroPad(getVarint(buffer), digits);
+        } else {
+            throw new IllegalArgumentException("Unknown truck id tag " + tag);
+        }
+
+        return new TruckTelemetry(truckId,
+                buffer.getDouble(),
+                buffer.getDouble(),
+                buffer.getDouble(),
+                buffer.getDouble(),
+                buffer.getDouble(),
+                buffer.getLong());
+    }
+
+    private static int packablePrefix(String truckId) {
+        for (int i = 0; i < ID_PREFIXES.length; i++) {
+            String prefix = ID_PREFIXES[i];
+            int digits = truckId.length() - prefix.length();
+            if (digits < 1 || digits > MAX_PACKED_DIGITS || !truckId.startsWith(prefix)) {
+                continue;
+            }
+            boolean allDigits = true;
+            for (int c = prefix.length(); c < truckId.length() && allDigits; c++) {
+                char ch = truckId.charAt(c);
+                allDigits = ch >= '0' && ch <= '9';
+            }
+            if (allDigits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String zeroPad(long number, int digits) {
+        String value = Long.toString(number);
+        if (value.length() >= digits) {
+            return value;
+        }
+        StringBuilder padded = new StringBuilder(digits);
+        for (int i = value.length(); i < digits; i++) {
+            padded.append('0');
+        }
+        return padded.append(value).toString();
+    }
+
+    private static int varintSize(long value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IllegalArgumentException("Varint longer than 64 bits");
+            }
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
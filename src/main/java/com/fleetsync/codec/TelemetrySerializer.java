@@ -0,0 +1,52 @@
+package com.fleetsync.codec;
+
+import com.fleetsync.model.TruckTelemetry;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka value serializer: {@link TruckTelemetry} is written with {@link
+ * TelemetryCodec}, every other payload as JSON.
+ *
+ * @author Shivam Srivastav
+ */
+public class TelemetrySerializer implements Serializer<Object> {
+
+    public static final String CONTENT_TYPE_HEADER = "contentType";
+
+    private static final byte[] CONTENT_TYPE_BYTES = TelemetryCodec.CONTENT_TYPE.getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data instanceof TruckTelemetry telemetry) {
+            return TelemetryCodec.encode(telemetry);
+        }
+        return jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data instanceof TruckTelemetry telemetry) {
+            headers.remove(CONTENT_TYPE_HEADER);
+            headers.add(CONTENT_TYPE_HEADER, CONTENT_TYPE_BYTES);
+            return TelemetryCodec.encode(telemetry);
+        }
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
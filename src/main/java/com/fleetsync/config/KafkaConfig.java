@@ -0,0 +1,112 @@
+package com.fleetsync.config;
+
+import com.fleetsync.model.TruckTelemetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.util.Map;
+
+/**
+ * @author Shivam Srivastav
+ */
+@Configuration
+public class KafkaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaConfig.class);
+
+    // Rough size of one serialized telemetry record, used to size fetch.min.bytes
+    private static final int APPROX_RECORD_BYTES = 128;
+
+    /**
+     * Telemetry is keyed by truck id, so partitions bound how many listener
+     * threads per group can make progress. Existing topics with fewer
+     * partitions are grown on startup.
+     */
+    @Bean
+    public NewTopic fleetTelemetryTopic(@Value("${fleetsync.kafka.partitions:6}") int partitions) {
+        return TopicBuilder.name("fleet-telemetry").partitions(partitions).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic fleetAlertsTopic(@Value("${fleetsync.kafka.partitions:6}") int partitions) {
+        return TopicBuilder.name("fleet-alerts").partitions(partitions).replicas(1).build();
+    }
+
+    /**
+     * Closed analytics windows keyed by {@code <truckId>/<window>}; compaction
+     * keeps only the latest result per key.
+     */
+    @Bean
+    public NewTopic fleetAnalyticsTopic(@Value("${fleetsync.kafka.partitions:6}") int partitions) {
+        return TopicBuilder.name("fleet-analytics").partitions(partitions).replicas(1).compact().build();
+    }
+
+    /**
+     * Error handler for the record listeners. Values are read through an
+     * ErrorHandlingDeserializer (see application.properties), so a record that
+     * can't be decoded arrives here as a DeserializationException. That is
+     * never retried: the record is logged, counted and skipped instead of
+     * stalling its partition. Other failures are retried a few times first.
+     */
+    @Bean
+    public CommonErrorHandler kafkaErrorHandler(MeterRegistry registry) {
+        Counter skipped = Counter.builder("fleetsync.kafka.records.skipped")
+                .description("Records skipped because they could not be deserialized or kept failing")
+                .register(registry);
+        return new DefaultErrorHandler((record, ex) -> {
+            skipped.increment();
+            log.error("Skipping record {}-{}@{}", record.topic(), record.partition(), record.offset(), ex);
+        });
+    }
+
+    /**
+     * Listener factory for the database sink. Each poll is handed over as one
+     * batch. Offsets are managed by the listener itself: they are stored in
+     * PostgreSQL with the rows, and only mirrored to Kafka for partitions that
+     * were written. A record that can't be deserialized reaches the listener
+     * with a null value and is skipped there.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, TruckTelemetry> batchListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            @Value("${fleetsync.db-sink.batch-size:500}") int batchSize,
+            @Value("${fleetsync.db-sink.flush-interval-ms:500}") int flushIntervalMs,
+            @Value("${fleetsync.kafka.listener-concurrency:3}") int concurrency,
+            @Value("${fleetsync.kafka.partitions:6}") int partitions) {
+
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
+        // The broker holds the fetch until a full batch is available or the flush interval elapses
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, batchSize * APPROX_RECORD_BYTES);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, flushIntervalMs);
+
+        ConcurrentKafkaListenerContainerFactory<String, TruckTelemetry> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+        // Consumers beyond the partition count would sit idle
+        factory.setConcurrency(Math.max(1, Math.min(concurrency, partitions)));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        // Database failures are retried per partition by the listener; this covers anything else
+        ExponentialBackOff backOff = new ExponentialBackOff(500L, 2.0);
+        backOff.setMaxInterval(30_000L);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+}
@@ -1,16 +1,16 @@
 package com.fleetsync.config;
 
+import com.fleetsync.ingest.KeyedLaneExecutor;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.channel.DirectChannel;
-import org.springframework.integration.core.MessageProducer;
 import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
 import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
-import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
 import org.springframework.integration.mqtt.outbound.MqttPahoMessageHandler;
-import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.integration.mqtt.support.MqttHeaders;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 
@@ -22,34 +22,49 @@ import java.util.UUID;
 @Configuration
 public class MqttConfig {
 
-    private static final String BROKER_URL = "tcp://broker.hivemq.com:1883";
-    private static final String CLIENT_ID = "fleetsync-server-" + UUID.randomUUID().toString();
-    private static final String TOPIC = "fleet/trucks/+";
+    // Unique per process so restarted or additional instances never steal each other's sessions
+    static final String CLIENT_ID = "fleetsync-server-" + UUID.randomUUID().toString();
+
+    @Value("${fleetsync.mqtt.broker-url:tcp://broker.hivemq.com:1883}")
+    private String[] brokerUrls;
 
     @Bean
     public MqttPahoClientFactory mqttClientFactory() {
         DefaultMqttPahoClientFactory factory = new DefaultMqttPahoClientFactory();
         MqttConnectOptions options = new MqttConnectOptions();
-        options.setServerURIs(new String[] { BROKER_URL });
+        options.setServerURIs(brokerUrls);
         options.setCleanSession(true);
         factory.setConnectionOptions(options);
         return factory;
     }
 
+    /**
+     * Where the inbound clients (see MqttInboundPool) and the in-process
+     * simulator deliver raw messages.
+     */
+    @Bean
+    public MessageChannel mqttInboundChannel() {
+        return new DirectChannel();
+    }
+
+    /**
+     * Consumed by TelemetryService on the ingest lane threads.
+     */
     @Bean
     public MessageChannel mqttInputChannel() {
         return new DirectChannel();
     }
 
+    /**
+     * Moves processing off the MQTT callback thread. Messages are keyed on
+     * their topic (one per truck), so each truck's readings stay in order.
+     */
     @Bean
-    public MessageProducer inbound() {
-        MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter(CLIENT_ID + "_in",
-                mqttClientFactory(), TOPIC);
-        adapter.setCompletionTimeout(5000);
-        adapter.setConverter(new DefaultPahoMessageConverter());
-        adapter.setQos(1);
-        adapter.setOutputChannel(mqttInputChannel());
-        return adapter;
+    @ServiceActivator(inputChannel = "mqttInboundChannel")
+    public MessageHandler mqttLaneDispatcher(KeyedLaneExecutor laneExecutor) {
+        MessageChannel input = mqttInputChannel();
+        return message -> laneExecutor.execute(message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC),
+                () -> input.send(message));
     }
 
     @Bean
@@ -0,0 +1,103 @@
+package com.fleetsync.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The inbound MQTT clients of this instance. With a shared group they split
+ * the load with every other node, so ingest gives no per-truck ordering;
+ * per-truck state lives downstream in {@code AlertService}.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class MqttInboundPool implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(MqttInboundPool.class);
+
+    private final IntegrationFlowContext flowContext;
+    private final MqttPahoClientFactory clientFactory;
+    private final MessageChannel mqttInboundChannel;
+    private final String[] topics;
+    private final int qos;
+    private final String sharedGroup;
+    private final int clients;
+
+    private final List<String> registrations = new ArrayList<>();
+    private volatile boolean running;
+
+    public MqttInboundPool(IntegrationFlowContext flowContext, MqttPahoClientFactory clientFactory,
+            MessageChannel mqttInboundChannel,
+            @Value("${fleetsync.mqtt.topics:fleet/trucks/+}") String[] topics,
+            @Value("${fleetsync.mqtt.qos:1}") int qos,
+            @Value("${fleetsync.mqtt.shared-group:}") String sharedGroup,
+            @Value("${fleetsync.mqtt.inbound-clients:1}") int clients) {
+        this.flowContext = flowContext;
+        this.clientFactory = clientFactory;
+        this.mqttInboundChannel = mqttInboundChannel;
+        this.qos = qos;
+        this.sharedGroup = sharedGroup.isBlank() ? null : sharedGroup.trim();
+        this.topics = Arrays.stream(topics)
+                .map(String::trim)
+                .map(topic -> this.sharedGroup != null ? "$share/" + this.sharedGroup + "/" + topic : topic)
+                .toArray(String[]::new);
+
+        if (this.sharedGroup == null && clients > 1) {
+            log.warn("fleetsync.mqtt.inbound-clients={} needs fleetsync.mqtt.shared-group, otherwise every "
+                    + "client receives every message; starting a single client", clients);
+            this.clients = 1;
+        } else {
+            this.clients = Math.max(1, clients);
+        }
+    }
+
+    @Override
+    public void start() {
+        for (int i = 0; i < clients; i++) {
+            String clientId = MqttConfig.CLIENT_ID + "_in_" + i;
+            MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter(clientId,
+                    clientFactory, topics);
+            adapter.setCompletionTimeout(5000);
+            // Hand payloads over as raw bytes; TelemetryService decides between binary and JSON
+            DefaultPahoMessageConverter converter = new DefaultPahoMessageConverter();
+            converter.setPayloadAsBytes(true);
+            adapter.setConverter(converter);
+            adapter.setQos(qos);
+
+            String id = flowContext.registration(IntegrationFlow.from(adapter).channel(mqttInboundChannel).get())
+                    .id("mqttInbound-" + i)
+                    .register()
+                    .getId();
+            registrations.add(id);
+        }
+        running = true;
+        log.info("Started {} MQTT inbound client(s) on {} at QoS {}", clients, Arrays.toString(topics), qos);
+    }
+
+    @Override
+    public void stop() {
+        for (String id : registrations) {
+            flowContext.remove(id);
+        }
+        registrations.clear();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
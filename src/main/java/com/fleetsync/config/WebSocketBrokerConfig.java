@@ -0,0 +1,52 @@
+package com.fleetsync.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Replaces {@code @EnableWebSocketMessageBroker} so slow STOMP sessions drop
+ * frames instead of being closed.
+ *
+ * @author Shivam Srivastav
+ */
+@Configuration
+public class WebSocketBrokerConfig extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    @Override
+    @Bean
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+            AbstractSubscribableChannel clientOutboundChannel) {
+        DroppingSubProtocolWebSocketHandler handler = new DroppingSubProtocolWebSocketHandler(clientInboundChannel,
+                clientOutboundChannel);
+        handler.setPhase(getPhase());
+        return handler;
+    }
+
+    /**
+     * Bounds each session by the configured send time and buffer size, and
+     * drops the oldest buffered frames when a slow browser falls behind
+     * instead of letting it back up the broker.
+     */
+    static class DroppingSubProtocolWebSocketHandler extends SubProtocolWebSocketHandler {
+
+        DroppingSubProtocolWebSocketHandler(MessageChannel clientInboundChannel,
+                SubscribableChannel clientOutboundChannel) {
+            super(clientInboundChannel, clientOutboundChannel);
+        }
+
+        @Override
+        protected WebSocketSession decorateSession(WebSocketSession session) {
+            return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit(),
+                    OverflowStrategy.DROP);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.fleetsync.controller;
+
+import com.fleetsync.service.WindowedAnalyticsService;
+import com.fleetsync.stats.WindowResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Windowed per-truck aggregates served from memory. The state is not
+ * checkpointed, so it refills as windows close after a restart.
+ *
+ * @author Shivam Srivastav
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@Tag(name = "Analytics APIs", description = "Sliding and tumbling window aggregates computed in-stream")
+public class AnalyticsController {
+
+    private static final Map<String, Comparator<WindowResult>> SORT_FIELDS = Map.of(
+            "avgSpeed", Comparator.comparingDouble(WindowResult::avgSpeed),
+            "maxSpeed", Comparator.comparingDouble(WindowResult::maxSpeed),
+            "avgEngineTemp", Comparator.comparingDouble(WindowResult::avgEngineTemp),
+            "maxEngineTemp", Comparator.comparingDouble(WindowResult::maxEngineTemp),
+            "fuelUsed", Comparator.comparingDouble(WindowResult::fuelUsed),
+            "count", Comparator.comparingLong(WindowResult::count));
+
+    private final WindowedAnalyticsService analyticsService;
+
+    public AnalyticsController(WindowedAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @GetMapping("/trucks/{truckId}")
+    @Operation(summary = "Get Truck Windows", description = "Returns the truck's latest sliding window and its recent closed tumbling windows (newest first).")
+    public Map<String, Object> getTruckWindows(
+            @Parameter(description = "Truck ID (e.g., TRUCK-001)") @PathVariable String truckId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("truckId", truckId);
+        response.put(analyticsService.getSpec().slidingLabel(), analyticsService.getLatestSliding(truckId));
+        response.put(analyticsService.getSpec().tumblingLabel(), analyticsService.getTumblingHistory(truckId));
+        return response;
+    }
+
+    @GetMapping("/trucks")
+    @Operation(summary = "Rank Trucks", description = "Returns every truck's latest closed window, ranked by a metric (highest first).")
+    public Map<String, Object> rankTrucks(
+            @Parameter(description = "sliding (default) or tumbling") @RequestParam(defaultValue = "sliding") String window,
+            @Parameter(description = "avgSpeed, maxSpeed, avgEngineTemp, maxEngineTemp, fuelUsed or count") @RequestParam(defaultValue = "avgSpeed") String sortBy,
+            @Parameter(description = "Max trucks to return") @RequestParam(defaultValue = "50") int limit) {
+        if (!"sliding".equals(window) && !"tumbling".equals(window)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown window '" + window + "'; accepted windows: sliding, tumbling");
+        }
+        Comparator<WindowResult> comparator = SORT_FIELDS.get(sortBy);
+        if (comparator == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown sortBy '" + sortBy + "'; accepted fields: " + String.join(", ", new TreeSet<>(SORT_FIELDS.keySet())));
+        }
+        Map<String, Object> response = new HashMap<>();
+        boolean sliding = "sliding".equals(window);
+        List<WindowResult> results = analyticsService.getLatest(sliding, comparator, Math.max(1, Math.min(limit, 10_000)));
+        response.put("window", sliding ? analyticsService.getSpec().slidingLabel() : analyticsService.getSpec().tumblingLabel());
+        response.put("sortBy", sortBy);
+        response.put("trucks", results);
+        return response;
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Get Analytics Status", description = "Returns the watermark, window definitions and late/future-data counters of the windowing stage.")
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        long watermark = analyticsService.getWatermark();
+        status.put("watermark", watermark == Long.MIN_VALUE ? null : watermark);
+        status.put("slidingWindow", analyticsService.getSpec().slidingLabel());
+        status.put("tumblingWindow", analyticsService.getSpec().tumblingLabel());
+        status.put("allowedLatenessMs", analyticsService.getSpec().allowedLatenessMillis());
+        status.put("trackedTrucks", analyticsService.getTrackedTrucks());
+        status.put("windowsEmitted", analyticsService.getWindowsEmitted());
+        status.put("lateDropped", analyticsService.getLateDropped());
+        status.put("futureDropped", analyticsService.getFutureDropped());
+        status.put("aheadDropped", analyticsService.getAheadDropped());
+        return status;
+    }
+}
@@ -1,14 +1,28 @@
 package com.fleetsync.controller;
 
+import com.fleetsync.geofence.GeofenceDefinition;
+import com.fleetsync.geofence.GeofenceEngine;
 import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.service.FleetSnapshotService;
 import com.fleetsync.service.KafkaConsumerService;
 import com.fleetsync.service.TelemetryService;
+import com.fleetsync.spatial.FleetSpatialIndex;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,47 +34,139 @@ public class FleetController {
 
     private final KafkaConsumerService consumerService;
     private final TelemetryService telemetryService;
+    private final FleetSpatialIndex spatialIndex;
+    private final FleetSnapshotService fleetSnapshotService;
+    private final GeofenceEngine geofenceEngine;
 
-    public FleetController(KafkaConsumerService consumerService, TelemetryService telemetryService) {
+    public FleetController(KafkaConsumerService consumerService, TelemetryService telemetryService,
+            FleetSpatialIndex spatialIndex, FleetSnapshotService fleetSnapshotService, GeofenceEngine geofenceEngine) {
         this.consumerService = consumerService;
         this.telemetryService = telemetryService;
+        this.spatialIndex = spatialIndex;
+        this.fleetSnapshotService = fleetSnapshotService;
+        this.geofenceEngine = geofenceEngine;
     }
 
     @GetMapping("/trucks")
-    @Operation(summary = "Get All Trucks", description = "Returns current telemetry data for all active trucks.")
-    public Map<String, TruckTelemetry> getAllTrucks() {
-        return consumerService.getLatestTelemetry();
+    @Operation(summary = "Get All Trucks", description = "Returns current telemetry data for all active trucks. Supports If-None-Match and, with since=<version>, only the trucks changed after that version.")
+    public ResponseEntity<byte[]> getAllTrucks(
+            @Parameter(description = "Only trucks changed after this version (from the ETag / X-Fleet-Version header)") @RequestParam(required = false) Long since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        FleetSnapshotService.CachedBody body = since != null
+                ? fleetSnapshotService.trucksSince(since)
+                : fleetSnapshotService.trucks();
+        return cached(body, ifNoneMatch, acceptEncoding);
     }
 
-    @GetMapping("/alerts")
-    @Operation(summary = "Get Recent Alerts", description = "Returns the 50 most recent alerts.")
-    public List<String> getRecentAlerts() {
-        return consumerService.getRecentAlerts();
+    @GetMapping("/trucks/within")
+    @Operation(summary = "Get Trucks In Area", description = "Returns trucks whose latest position is inside the bounding box.")
+    public List<TruckTelemetry> getTrucksWithin(
+            @Parameter(description = "South edge latitude") @RequestParam double minLat,
+            @Parameter(description = "West edge longitude") @RequestParam double minLon,
+            @Parameter(description = "North edge latitude") @RequestParam double maxLat,
+            @Parameter(description = "East edge longitude") @RequestParam double maxLon) {
+        List<TruckTelemetry> trucks = new ArrayList<>();
+        for (String truckId : spatialIndex.within(minLat, minLon, maxLat, maxLon)) {
+            TruckTelemetry telemetry = consumerService.getLatestTelemetry(truckId);
+            if (telemetry != null) {
+                trucks.add(telemetry);
+            }
+        }
+        return trucks;
     }
 
-    @GetMapping("/stats")
-    @Operation(summary = "Get Fleet Statistics", description = "Returns real-time aggregated statistics for the entire fleet.")
-    public Map<String, Object> getFleetStats() {
-        Map<String, TruckTelemetry> fleet = consumerService.getLatestTelemetry();
-        Map<String, Object> stats = new HashMap<>();
+    @GetMapping("/trucks/nearest")
+    @Operation(summary = "Get Nearest Trucks", description = "Returns the k trucks closest to a point, nearest first.")
+    public List<Map<String, Object>> getNearestTrucks(
+            @Parameter(description = "Latitude of the point") @RequestParam double lat,
+            @Parameter(description = "Longitude of the point") @RequestParam double lon,
+            @Parameter(description = "Number of trucks to return") @RequestParam(defaultValue = "5") int k) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (FleetSpatialIndex.Neighbor neighbor : spatialIndex.nearest(lat, lon, Math.min(k, 1000))) {
+            TruckTelemetry telemetry = consumerService.getLatestTelemetry(neighbor.truckId());
+            if (telemetry != null) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("truck", telemetry);
+                entry.put("distanceKm", Math.round(neighbor.distanceKm() * 1000.0) / 1000.0);
+                result.add(entry);
+            }
+        }
+        return result;
+    }
 
-        stats.put("activeTrucks", fleet.size());
+    @GetMapping("/alerts")
+    @Operation(summary = "Get Recent Alerts", description = "Returns the most recent alerts (50 by default), optionally filtered by truck or alert type.")
+    public List<String> getRecentAlerts(
+            @Parameter(description = "Only alerts for this truck (e.g., TRUCK-001)") @RequestParam(required = false) String truckId,
+            @Parameter(description = "Only alerts of this type (e.g., SPEEDING)") @RequestParam(required = false) String type,
+            @Parameter(description = "Max alerts to return (at least 1)") @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return consumerService.getRecentAlerts(truckId, type, limit);
+    }
 
-        if (fleet.isEmpty()) {
-            stats.put("averageSpeed", 0.0);
-            stats.put("averageEngineTemp", 0.0);
-            stats.put("averageFuelLevel", 0.0);
-            return stats;
+    @GetMapping("/geofences")
+    @Operation(summary = "Get Geofences", description = "Returns the geofences currently evaluated against incoming telemetry.")
+    public Map<String, Object> getGeofences() {
+        List<Map<String, Object>> fences = new ArrayList<>();
+        for (GeofenceDefinition fence : geofenceEngine.getDefinitions()) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("name", fence.name());
+            entry.put("kind", fence.kind());
+            entry.put("dwellSeconds", fence.dwellSeconds());
+            entry.put("vertices", fence.polygon().size());
+            fences.add(entry);
         }
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", fences.size());
+        response.put("loadedAt", geofenceEngine.getLoadedAt());
+        response.put("fences", fences);
+        return response;
+    }
 
-        double avgSpeed = fleet.values().stream().mapToDouble(TruckTelemetry::getSpeed).average().orElse(0.0);
-        double avgTemp = fleet.values().stream().mapToDouble(TruckTelemetry::getEngineTemp).average().orElse(0.0);
-        double avgFuel = fleet.values().stream().mapToDouble(TruckTelemetry::getFuelLevel).average().orElse(0.0);
+    @PostMapping("/geofences/reload")
+    @Operation(summary = "Reload Geofences", description = "Reloads the geofences file now instead of waiting for the next poll.")
+    public Map<String, Object> reloadGeofences() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("reloaded", geofenceEngine.reload());
+        response.put("count", geofenceEngine.getDefinitions().size());
+        return response;
+    }
 
-        stats.put("averageSpeed", Math.round(avgSpeed * 10.0) / 10.0);
-        stats.put("averageEngineTemp", Math.round(avgTemp * 10.0) / 10.0);
-        stats.put("averageFuelLevel", Math.round(avgFuel * 10.0) / 10.0);
+    @GetMapping("/stats")
+    @Operation(summary = "Get Fleet Statistics", description = "Returns real-time aggregated statistics for the entire fleet. Supports If-None-Match.")
+    public ResponseEntity<byte[]> getFleetStats(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return cached(fleetSnapshotService.stats(), ifNoneMatch, acceptEncoding);
+    }
 
-        return stats;
+    /**
+     * Serves pre-serialized bytes; the snapshot version is the (weak) ETag,
+     * since the gzip and plain bodies of one version carry the same data.
+     */
+    private static ResponseEntity<byte[]> cached(FleetSnapshotService.CachedBody body, String ifNoneMatch,
+            String acceptEncoding) {
+        String tag = "\"" + body.version() + "\"";
+        String etag = "W/" + tag;
+        // Weak comparison: W/"7" and "7" both match
+        if (ifNoneMatch != null && ifNoneMatch.contains(tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.ETAG, etag)
+                    .header("X-Fleet-Version", Long.toString(body.version()))
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ETAG, etag)
+                .header("X-Fleet-Version", Long.toString(body.version()))
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (body.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
     }
 }
@@ -1,17 +1,31 @@
 package com.fleetsync.controller;
 
 import com.fleetsync.entity.TruckTelemetryEntity;
+import com.fleetsync.model.TelemetryCursor;
 import com.fleetsync.repository.TelemetryRepository;
+import com.fleetsync.repository.TruckDirectory;
+import com.fleetsync.service.TelemetryExportService;
+import com.fleetsync.service.TruckPathService;
+import com.fleetsync.spatial.PathEncoding;
+import com.fleetsync.spatial.PathSimplifier;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author Shivam Srivastav
@@ -21,52 +35,142 @@ import java.util.Map;
 @Tag(name = "Historical Data", description = "APIs for querying historical telemetry data from PostgreSQL")
 public class HistoryController {
 
+    private static final List<String> PATH_FORMATS = List.of("polyline", "columnar");
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final TelemetryRepository repository;
+    private final TelemetryExportService exportService;
+    private final TruckDirectory truckDirectory;
+    private final TruckPathService truckPathService;
+    private final double defaultToleranceMeters;
 
-    public HistoryController(TelemetryRepository repository) {
+    public HistoryController(TelemetryRepository repository, TelemetryExportService exportService,
+            TruckDirectory truckDirectory, TruckPathService truckPathService,
+            @Value("${fleetsync.history.path.default-tolerance-meters:5}") double defaultToleranceMeters) {
         this.repository = repository;
+        this.exportService = exportService;
+        this.truckDirectory = truckDirectory;
+        this.truckPathService = truckPathService;
+        this.defaultToleranceMeters = defaultToleranceMeters;
     }
 
     @GetMapping("/telemetry")
-    @Operation(summary = "Get Historical Telemetry", description = "Retrieve past telemetry data with optional time range filters.")
+    @Operation(summary = "Get Historical Telemetry", description = "Retrieve past telemetry data with optional time range filters. Pass the returned nextCursor to get the next page.")
     public Map<String, Object> getHistory(
             @Parameter(description = "Start timestamp (Unix ms)") @RequestParam(required = false) Long from,
             @Parameter(description = "End timestamp (Unix ms)") @RequestParam(required = false) Long to,
-            @Parameter(description = "Max records to return") @RequestParam(defaultValue = "100") int limit) {
+            @Parameter(description = "Max records to return (1 to 1000)") @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "nextCursor from the previous page") @RequestParam(required = false) String cursor) {
 
-        List<TruckTelemetryEntity> data;
+        limit = pageSize(limit);
+        TelemetryCursor position = cursor(cursor);
+        long rangeFrom = (from != null && to != null) ? from : Long.MIN_VALUE;
+        long rangeTo = (from != null && to != null) ? to : Long.MAX_VALUE;
 
-        if (from != null && to != null) {
-            data = repository.findByTimestampBetween(from, to,
-                    PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "timestamp")));
-        } else {
-            data = repository.findAll(PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "timestamp"))).getContent();
+        List<TruckTelemetryEntity> data = repository.findPageByTimestampBetween(rangeFrom, rangeTo,
+                position.timestamp(), position.id(), limit);
+        for (TruckTelemetryEntity row : data) {
+            row.setTruckId(truckDirectory.idFor(row.getTruckKey()));
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("count", data.size());
         response.put("data", data);
+        response.put("nextCursor", nextCursor(data, limit));
 
         return response;
     }
 
     @GetMapping("/truck/{truckId}")
-    @Operation(summary = "Get Truck History", description = "Retrieve historical path data for a specific truck.")
+    @Operation(summary = "Get Truck History", description = "Retrieve historical path data for a specific truck. Pass the returned nextCursor to get the next page.")
     public Map<String, Object> getTruckHistory(
             @Parameter(description = "Truck ID (e.g., TRUCK-001)") @PathVariable String truckId,
-            @Parameter(description = "Max records to return") @RequestParam(defaultValue = "100") int limit) {
+            @Parameter(description = "Max records to return (1 to 1000)") @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "nextCursor from the previous page") @RequestParam(required = false) String cursor) {
 
-        List<TruckTelemetryEntity> data = repository.findByTruckId(truckId,
-                PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "timestamp")));
+        limit = pageSize(limit);
+        TelemetryCursor position = cursor(cursor);
+        Integer truckKey = truckDirectory.findKey(truckId);
+        List<TruckTelemetryEntity> data = truckKey == null ? List.of()
+                : repository.findPageByTruckKey(truckKey, position.timestamp(), position.id(), limit);
+        for (TruckTelemetryEntity row : data) {
+            row.setTruckId(truckId);
+        }
 
         Map<String, Object> response = new HashMap<>();
         response.put("truckId", truckId);
         response.put("count", data.size());
         response.put("data", data);
+        response.put("nextCursor", nextCursor(data, limit));
+
+        return response;
+    }
+
+    @GetMapping("/truck/{truckId}/path")
+    @Operation(summary = "Get Truck Path", description = "Returns a truck's route over a time range, simplified to the given tolerance, as an encoded polyline or delta-encoded columns.")
+    public Map<String, Object> getTruckPath(
+            @Parameter(description = "Truck ID (e.g., TRUCK-001)") @PathVariable String truckId,
+            @Parameter(description = "Start timestamp, inclusive (Unix ms); defaults to 24h before 'to'") @RequestParam(required = false) Long from,
+            @Parameter(description = "End timestamp, exclusive (Unix ms); defaults to now") @RequestParam(required = false) Long to,
+            @Parameter(description = "Max deviation from the real route in metres (0 keeps every point)") @RequestParam(required = false) Double tolerance,
+            @Parameter(description = "polyline or columnar") @RequestParam(defaultValue = "polyline") String format) {
+
+        String pathFormat = pathFormat(format);
+        if (tolerance != null && !(tolerance >= 0 && tolerance < Double.POSITIVE_INFINITY)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "tolerance must be a non-negative number of metres");
+        }
+        long rangeTo = to != null ? to : System.currentTimeMillis();
+        long rangeFrom = from != null ? from : rangeTo - 24 * 60 * 60 * 1000L;
+        double toleranceMeters = tolerance != null ? tolerance : defaultToleranceMeters;
+
+        PathSimplifier path = truckPathService.simplifiedPath(truckId, rangeFrom, rangeTo, toleranceMeters);
+        double[] latitudes = path.latitudes();
+        double[] longitudes = path.longitudes();
 
+        Map<String, Object> response = new HashMap<>();
+        response.put("truckId", truckId);
+        response.put("from", rangeFrom);
+        response.put("to", rangeTo);
+        response.put("toleranceMeters", toleranceMeters);
+        response.put("pointsRead", path.pointsIn());
+        response.put("pointsReturned", path.pointsOut());
+        response.put("format", pathFormat);
+        // Timestamps in ms, each relative to the previous point (the first is absolute)
+        response.put("timestamps", PathEncoding.delta(path.timestamps()));
+        if ("columnar".equals(pathFormat)) {
+            // Degrees x 1e5, each relative to the previous point (the first is absolute)
+            response.put("latitudes", PathEncoding.deltaScaled(latitudes));
+            response.put("longitudes", PathEncoding.deltaScaled(longitudes));
+        } else {
+            response.put("polyline", PathEncoding.polyline(latitudes, longitudes));
+        }
         return response;
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Export Telemetry", description = "Streams all telemetry in a time range as NDJSON or CSV, optionally gzip-compressed.")
+    public ResponseEntity<StreamingResponseBody> exportTelemetry(
+            @Parameter(description = "Start timestamp, inclusive (Unix ms)") @RequestParam long from,
+            @Parameter(description = "End timestamp, exclusive (Unix ms)") @RequestParam long to,
+            @Parameter(description = "Only export this truck") @RequestParam(required = false) String truckId,
+            @Parameter(description = "ndjson or csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Gzip the response body") @RequestParam(defaultValue = "false") boolean gzip) {
+
+        TelemetryExportService.Format exportFormat = exportFormat(format);
+        boolean csv = exportFormat == TelemetryExportService.Format.CSV;
+        String filename = "telemetry-" + from + "-" + to + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(out -> exportService.export(from, to, truckId, exportFormat, gzip, out));
+    }
+
     @GetMapping("/stats")
     @Operation(summary = "Get Database Stats", description = "Returns statistics about the historical database.")
     public Map<String, Object> getStats() {
@@ -76,4 +180,51 @@ public class HistoryController {
         stats.put("status", "Connected");
         return stats;
     }
+
+    // Larger pages are capped rather than rejected; nextCursor continues from wherever the page ended
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private static TelemetryCursor cursor(String token) {
+        try {
+            return TelemetryCursor.decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid cursor; pass nextCursor from the previous page unchanged");
+        }
+    }
+
+    private static String pathFormat(String format) {
+        String normalized = format.trim().toLowerCase(Locale.ROOT);
+        if (!PATH_FORMATS.contains(normalized)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown format '" + format + "'; accepted formats: " + String.join(", ", PATH_FORMATS));
+        }
+        return normalized;
+    }
+
+    private static TelemetryExportService.Format exportFormat(String format) {
+        try {
+            return TelemetryExportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            String accepted = Arrays.stream(TelemetryExportService.Format.values())
+                    .map(value -> value.name().toLowerCase(Locale.ROOT))
+                    .collect(Collectors.joining(", "));
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown format '" + format + "'; accepted formats: " + accepted);
+        }
+    }
+
+    // A short page means there is nothing left to read
+    private static String nextCursor(List<TruckTelemetryEntity> page, int limit) {
+        if (page.isEmpty() || page.size() < limit) {
+            return null;
+        }
+        TruckTelemetryEntity last = page.get(page.size() - 1);
+        return new TelemetryCursor(last.getTimestamp(), last.getId()).encode();
+    }
 }
@@ -1,5 +1,8 @@
 package com.fleetsync.controller;
 
+import com.fleetsync.ingest.TelemetryPublisher;
+import com.fleetsync.metrics.ConsumerLagMonitor;
+import com.fleetsync.service.DatabaseConsumerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.apache.kafka.clients.admin.AdminClient;
@@ -21,9 +24,16 @@ import java.util.concurrent.ExecutionException;
 public class MetricsController {
 
     private final KafkaAdmin kafkaAdmin;
+    private final DatabaseConsumerService databaseConsumerService;
+    private final ConsumerLagMonitor consumerLagMonitor;
+    private final TelemetryPublisher telemetryPublisher;
 
-    public MetricsController(KafkaAdmin kafkaAdmin) {
+    public MetricsController(KafkaAdmin kafkaAdmin, DatabaseConsumerService databaseConsumerService,
+            ConsumerLagMonitor consumerLagMonitor, TelemetryPublisher telemetryPublisher) {
         this.kafkaAdmin = kafkaAdmin;
+        this.databaseConsumerService = databaseConsumerService;
+        this.consumerLagMonitor = consumerLagMonitor;
+        this.telemetryPublisher = telemetryPublisher;
     }
 
     @GetMapping("/kafka/topics")
@@ -38,13 +48,42 @@ public class MetricsController {
     }
 
     @GetMapping("/kafka/consumer")
-    @Operation(summary = "Get Consumer Metrics", description = "Returns metrics for the 'fleetsync-dashboard' consumer group.")
+    @Operation(summary = "Get Consumer Metrics", description = "Returns per-partition committed offset, end offset and lag for each consumer group listed in fleetsync.metrics.lag-groups.")
     public Map<String, Object> getConsumerMetrics() {
         Map<String, Object> metrics = new HashMap<>();
-        metrics.put("groupId", "fleetsync-dashboard");
-        metrics.put("state", "Stable");
-        metrics.put("members", 1);
-        metrics.put("currentOffset", new Random().nextInt(1000)); // Simulated for demo
+        metrics.put("groups", consumerLagMonitor.getLatest());
+        metrics.put("updatedAt", consumerLagMonitor.getUpdatedAt());
+        if (consumerLagMonitor.getLastError() != null) {
+            metrics.put("error", consumerLagMonitor.getLastError());
+        }
+        return metrics;
+    }
+
+    @GetMapping("/database/sink")
+    @Operation(summary = "Get Database Sink Metrics", description = "Returns write throughput of the batched PostgreSQL sink.")
+    public Map<String, Object> getDatabaseSinkMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("groupId", DatabaseConsumerService.GROUP_ID);
+        metrics.put("rowsWritten", databaseConsumerService.getRowsWritten());
+        metrics.put("batchesWritten", databaseConsumerService.getBatchesWritten());
+        metrics.put("lastBatchSize", databaseConsumerService.getLastBatchSize());
+        metrics.put("rowsPerSecond", Math.round(databaseConsumerService.getRowsPerSecond() * 10.0) / 10.0);
+        metrics.put("duplicatesSkipped", databaseConsumerService.getDuplicatesSkipped());
+        metrics.put("retryingPartitions", databaseConsumerService.getRetryingPartitions());
+        return metrics;
+    }
+
+    @GetMapping("/kafka/producer")
+    @Operation(summary = "Get Producer Metrics", description = "Returns in-flight telemetry sends and the state of the on-disk spool used while Kafka is slow or down.")
+    public Map<String, Object> getProducerMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("inFlight", telemetryPublisher.getInFlight());
+        metrics.put("spoolDepth", telemetryPublisher.getSpoolDepth());
+        metrics.put("spoolBytes", telemetryPublisher.getSpoolBytes());
+        metrics.put("spooled", telemetryPublisher.getSpooled());
+        metrics.put("drained", telemetryPublisher.getDrained());
+        metrics.put("drainedPerSecond", Math.round(telemetryPublisher.getDrainedPerSecond() * 10.0) / 10.0);
+        metrics.put("dropped", telemetryPublisher.getDropped());
         return metrics;
     }
 
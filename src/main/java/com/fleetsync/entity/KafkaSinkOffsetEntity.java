@@ -0,0 +1,94 @@
+package com.fleetsync.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Next Kafka offset to write for one sink partition, updated with the rows it
+ * covers.
+ *
+ * @author Shivam Srivastav
+ */
+@Entity
+@Table(name = "kafka_sink_offset")
+public class KafkaSinkOffsetEntity {
+
+    @EmbeddedId
+    private Key key;
+
+    @Column(name = "next_offset", nullable = false)
+    private Long nextOffset;
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "consumer_group", nullable = false, length = 100)
+        private String consumerGroup;
+
+        @Column(nullable = false, length = 200)
+        private String topic;
+
+        @Column(name = "partition_id", nullable = false)
+        private Integer partitionId;
+
+        public Key() {
+        }
+
+        public Key(String consumerGroup, String topic, Integer partitionId) {
+            this.consumerGroup = consumerGroup;
+            this.topic = topic;
+            this.partitionId = partitionId;
+        }
+
+        public String getConsumerGroup() {
+            return consumerGroup;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public Integer getPartitionId() {
+            return partitionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(consumerGroup, other.consumerGroup)
+                    && Objects.equals(topic, other.topic)
+                    && Objects.equals(partitionId, other.partitionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(consumerGroup, topic, partitionId);
+        }
+    }
+
+    public KafkaSinkOffsetEntity() {
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public void setKey(Key key) {
+        this.key = key;
+    }
+
+    public Long getNextOffset() {
+        return nextOffset;
+    }
+
+    public void setNextOffset(Long nextOffset) {
+        this.nextOffset = nextOffset;
+    }
+}
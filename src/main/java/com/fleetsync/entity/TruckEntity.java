@@ -0,0 +1,44 @@
+package com.fleetsync.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Maps each truck id to the integer key stored on telemetry rows.
+ *
+ * @author Shivam Srivastav
+ */
+@Entity
+@Table(name = "truck", uniqueConstraints = @UniqueConstraint(name = "uk_truck_truck_id", columnNames = "truck_id"))
+public class TruckEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "truck_key")
+    private Integer truckKey;
+
+    @Column(name = "truck_id", nullable = false, length = 50)
+    private String truckId;
+
+    public TruckEntity() {
+    }
+
+    public TruckEntity(String truckId) {
+        this.truckId = truckId;
+    }
+
+    public Integer getTruckKey() {
+        return truckKey;
+    }
+
+    public void setTruckKey(Integer truckKey) {
+        this.truckKey = truckKey;
+    }
+
+    public String getTruckId() {
+        return truckId;
+    }
+
+    public void setTruckId(String truckId) {
+        this.truckId = truckId;
+    }
+}
@@ -1,23 +1,33 @@
 package com.fleetsync.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.Instant;
 
 /**
+ * Telemetry row keyed by the truck's integer key; at most one row per truck
+ * and timestamp.
+ *
  * @author Shivam Srivastav
  */
 @Entity
 @Table(name = "truck_telemetry", indexes = {
-        @Index(name = "idx_truck_id", columnList = "truck_id"),
-        @Index(name = "idx_timestamp", columnList = "timestamp")
-})
+        @Index(name = "idx_truck_key_timestamp", columnList = "truck_key, timestamp, id"),
+        @Index(name = "idx_timestamp_id", columnList = "timestamp, id")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_truck_telemetry_reading", columnNames = { "truck_key", "timestamp" }))
 public class TruckTelemetryEntity {
 
+    // Sequence-backed ids so rows can be written in multi-row batches (IDENTITY disables JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "truck_telemetry_seq")
+    @SequenceGenerator(name = "truck_telemetry_seq", sequenceName = "truck_telemetry_id_seq", allocationSize = 1)
     private Long id;
 
-    @Column(name = "truck_id", nullable = false, length = 50)
+    @JsonIgnore
+    @Column(name = "truck_key", nullable = false)
+    private Integer truckKey;
+
+    @Transient
     private String truckId;
 
     @Column(nullable = false)
@@ -70,6 +80,14 @@ public class TruckTelemetryEntity {
         this.id = id;
     }
 
+    public Integer getTruckKey() {
+        return truckKey;
+    }
+
+    public void setTruckKey(Integer truckKey) {
+        this.truckKey = truckKey;
+    }
+
     public String getTruckId() {
         return truckId;
     }
@@ -0,0 +1,20 @@
+package com.fleetsync.geofence;
+
+import java.util.List;
+
+/**
+ * One fence as written in the geofences file, e.g.
+ * <pre>
+ * { "name": "Red Hook Depot", "kind": "DEPOT", "dwellSeconds": 900,
+ *   "polygon": [ [40.676, -74.018], [40.676, -74.004], [40.668, -74.004], [40.668, -74.018] ] }
+ * </pre>
+ * Vertices are {@code [latitude, longitude]}; omit {@code dwellSeconds} to
+ * disable dwell events.
+ *
+ * @author Shivam Srivastav
+ */
+public record GeofenceDefinition(String name, String kind, List<double[]> polygon, Integer dwellSeconds) {
+
+    public record FenceSet(List<GeofenceDefinition> fences) {
+    }
+}
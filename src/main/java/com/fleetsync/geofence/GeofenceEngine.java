@@ -0,0 +1,200 @@
+package com.fleetsync.geofence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.model.TruckTelemetry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports geofence enter, exit and dwell transitions per truck. Fences are
+ * reloaded from a JSON file and swapped in without pausing ingest; readings
+ * for one truck must not be evaluated concurrently.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class GeofenceEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(GeofenceEngine.class);
+
+    public static final String ENTER = "GEOFENCE_ENTER";
+    public static final String EXIT = "GEOFENCE_EXIT";
+    public static final String DWELL = "GEOFENCE_DWELL";
+
+    private final ObjectMapper objectMapper;
+    private final Resource location;
+    private final double cellSize;
+
+    private volatile GeofenceIndex index;
+    private volatile List<GeofenceDefinition> definitions = List.of();
+    private volatile long loadedAt;
+    private volatile long loadedModified = -1;
+
+    private final Map<String, TruckState> states = new ConcurrentHashMap<>();
+
+    private static final class Visit {
+        final long enteredAt;
+        boolean dwellReported;
+        long seen;
+
+        Visit(long enteredAt) {
+            this.enteredAt = enteredAt;
+        }
+    }
+
+    private static final class TruckState {
+        // Keyed by fence name so visits survive a reload that reorders the fences
+        final Map<String, Visit> visits = new HashMap<>(4);
+        long evaluation;
+    }
+
+    public GeofenceEngine(ObjectMapper objectMapper,
+            @Value("${fleetsync.geofences.location:classpath:geofences.json}") Resource location,
+            @Value("${fleetsync.geofences.cell-size-degrees:0.01}") double cellSize) {
+        this.objectMapper = objectMapper;
+        this.location = location;
+        this.cellSize = cellSize;
+        this.index = new GeofenceIndex(List.of(), cellSize);
+        if (location.exists()) {
+            reload();
+        } else {
+            log.info("No geofences at {}; geofencing is idle until the file appears", location);
+        }
+    }
+
+    /**
+     * @return the events raised by this reading, e.g. {@code "GEOFENCE_ENTER (Red Hook Depot)"};
+     *         empty (and not allocated) when nothing changed
+     */
+    public List<String> evaluate(TruckTelemetry telemetry) {
+        GeofenceIndex current = index;
+        TruckState state = states.get(telemetry.getTruckId());
+        if (state == null) {
+            if (current.size() == 0) {
+                return List.of();
+            }
+            state = new TruckState();
+            TruckState existing = states.putIfAbsent(telemetry.getTruckId(), state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+
+        double latitude = telemetry.getLatitude();
+        double longitude = telemetry.getLongitude();
+        long evaluation = ++state.evaluation;
+        List<String> events = null;
+        int inside = 0;
+
+        int[] candidates = current.candidates(latitude, longitude);
+        int[] large = current.largeFences();
+        for (int c = 0; c < candidates.length + large.length; c++) {
+            int fence = c < candidates.length ? candidates[c] : large[c - candidates.length];
+            if (!current.contains(fence, latitude, longitude)) {
+                continue;
+            }
+            inside++;
+            String name = current.name(fence);
+            Visit visit = state.visits.get(name);
+            if (visit == null) {
+                visit = new Visit(telemetry.getTimestamp());
+                state.visits.put(name, visit);
+                events = add(events, ENTER, name);
+            } else if (!visit.dwellReported && current.dwellMillis(fence) > 0
+                    && telemetry.getTimestamp() - visit.enteredAt >= current.dwellMillis(fence)) {
+                visit.dwellReported = true;
+                events = add(events, DWELL, name);
+            }
+            visit.seen = evaluation;
+        }
+
+        // Only walk the visits when some fence we were inside didn't match this time
+        if (state.visits.size() > inside) {
+            Iterator<Map.Entry<String, Visit>> it = state.visits.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Visit> entry = it.next();
+                if (entry.getValue().seen != evaluation) {
+                    it.remove();
+                    // A fence deleted by a reload is forgotten, not exited
+                    if (current.indexOf(entry.getKey()) >= 0) {
+                        events = add(events, EXIT, entry.getKey());
+                    }
+                }
+            }
+        }
+        return events != null ? events : List.of();
+    }
+
+    /**
+     * Polls the fences file and swaps in a new index when it has changed.
+     */
+    @Scheduled(fixedDelayString = "${fleetsync.geofences.reload-interval-ms:10000}")
+    public void reloadIfModified() {
+        try {
+            if (location.exists() && location.lastModified() != loadedModified) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.debug("Cannot check {} for changes", location, e);
+        }
+    }
+
+    /**
+     * Loads and compiles the fences file. A file that fails to parse or
+     * validate is logged and the current fences stay in effect.
+     *
+     * @return true if the new fences were swapped in
+     */
+    public synchronized boolean reload() {
+        long start = System.nanoTime();
+        try {
+            // Recorded up front so a broken file is reported once, not on every poll
+            loadedModified = location.lastModified();
+            List<GeofenceDefinition> loaded;
+            try (InputStream in = location.getInputStream()) {
+                loaded = objectMapper.readValue(in, GeofenceDefinition.FenceSet.class).fences();
+            }
+            if (loaded == null) {
+                loaded = List.of();
+            }
+            GeofenceIndex compiled = new GeofenceIndex(loaded, cellSize);
+            definitions = List.copyOf(loaded);
+            index = compiled;
+            loadedAt = System.currentTimeMillis();
+            log.info("Loaded {} geofences from {} into {} grid cells in {} ms", compiled.size(), location,
+                    compiled.cellCount(), (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not load geofences from {}; keeping the {} current fences", location,
+                    index.size(), e);
+            return false;
+        }
+    }
+
+    public List<GeofenceDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    private static List<String> add(List<String> events, String type, String fence) {
+        List<String> result = events != null ? events : new ArrayList<>(2);
+        result.add(type + " (" + fence + ")");
+        return result;
+    }
+}
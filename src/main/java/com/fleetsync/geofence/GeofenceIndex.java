@@ -0,0 +1,184 @@
+package com.fleetsync.geofence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of fences bucketed into a lat/lon grid, so a lookup only
+ * tests the fences near the point. Fences covering too many cells are checked
+ * on every lookup instead.
+ *
+ * @author Shivam Srivastav
+ */
+public final class GeofenceIndex {
+
+    private static final int[] NO_FENCES = new int[0];
+    private static final int MAX_CELLS_PER_FENCE = 4096;
+
+    private final String[] names;
+    private final String[] kinds;
+    private final long[] dwellMillis;
+    // Vertices per fence, plus its bounding box
+    private final double[][] latitudes;
+    private final double[][] longitudes;
+    private final double[] minLat;
+    private final double[] maxLat;
+    private final double[] minLon;
+    private final double[] maxLon;
+
+    private final double cellSize;
+    private final int cols;
+    private final Map<Long, int[]> cells;
+    private final int[] large;
+    private final Map<String, Integer> byName;
+
+    public GeofenceIndex(List<GeofenceDefinition> definitions, double cellSize) {
+        int n = definitions.size();
+        this.cellSize = cellSize;
+        this.cols = (int) Math.ceil(360.0 / cellSize);
+        this.names = new String[n];
+        this.kinds = new String[n];
+        this.dwellMillis = new long[n];
+        this.latitudes = new double[n][];
+        this.longitudes = new double[n][];
+        this.minLat = new double[n];
+        this.maxLat = new double[n];
+        this.minLon = new double[n];
+        this.maxLon = new double[n];
+        this.byName = new HashMap<>();
+
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        List<Integer> largeFences = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            GeofenceDefinition fence = definitions.get(i);
+            compile(i, fence);
+            if (byName.put(names[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate geofence name: " + names[i]);
+            }
+
+            int rowFrom = row(minLat[i]);
+            int rowTo = row(maxLat[i]);
+            int colFrom = col(minLon[i]);
+            int colTo = col(maxLon[i]);
+            if ((long) (rowTo - rowFrom + 1) * (colTo - colFrom + 1) > MAX_CELLS_PER_FENCE) {
+                largeFences.add(i);
+                continue;
+            }
+            for (int row = rowFrom; row <= rowTo; row++) {
+                for (int col = colFrom; col <= colTo; col++) {
+                    buckets.computeIfAbsent((long) row * cols + col, key -> new ArrayList<>(2)).add(i);
+                }
+            }
+        }
+
+        this.cells = new HashMap<>((int) (buckets.size() / 0.75f) + 1);
+        buckets.forEach((cell, fences) -> cells.put(cell, fences.stream().mapToInt(Integer::intValue).toArray()));
+        this.large = largeFences.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Fences registered in the point's grid cell. The array is shared; don't modify it.
+     */
+    public int[] candidates(double latitude, double longitude) {
+        return cells.getOrDefault((long) row(latitude) * cols + col(longitude), NO_FENCES);
+    }
+
+    /**
+     * Fences too large to bucket, which must be tested for every point.
+     */
+    public int[] largeFences() {
+        return large;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int fence) {
+        return names[fence];
+    }
+
+    public String kind(int fence) {
+        return kinds[fence];
+    }
+
+    /**
+     * @return the dwell threshold, or 0 if the fence has no dwell event
+     */
+    public long dwellMillis(int fence) {
+        return dwellMillis[fence];
+    }
+
+    /**
+     * @return the fence's index, or -1 if no fence has that name
+     */
+    public int indexOf(String name) {
+        Integer fence = byName.get(name);
+        return fence != null ? fence : -1;
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+
+    public boolean contains(int fence, double latitude, double longitude) {
+        if (latitude < minLat[fence] || latitude > maxLat[fence]
+                || longitude < minLon[fence] || longitude > maxLon[fence]) {
+            return false;
+        }
+        // Ray casting along the latitude line; fences are small enough to treat lat/lon as planar
+        double[] lat = latitudes[fence];
+        double[] lon = longitudes[fence];
+        boolean inside = false;
+        for (int i = 0, j = lat.length - 1; i < lat.length; j = i++) {
+            if ((lat[i] > latitude) != (lat[j] > latitude)
+                    && longitude < (lon[j] - lon[i]) * (latitude - lat[i]) / (lat[j] - lat[i]) + lon[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private void compile(int i, GeofenceDefinition fence) {
+        String name = fence.name();
+        // The name ends up in alert text, whose parser splits on ", " and " ("
+        if (name == null || name.isBlank() || name.contains(",") || name.contains("(") || name.contains(")")) {
+            throw new IllegalArgumentException("Geofence name must be non-empty without ',' or parentheses: " + name);
+        }
+        List<double[]> polygon = fence.polygon();
+        if (polygon == null || polygon.size() < 3) {
+            throw new IllegalArgumentException("Geofence " + name + " needs at least 3 vertices");
+        }
+
+        names[i] = name;
+        kinds[i] = fence.kind();
+        dwellMillis[i] = fence.dwellSeconds() != null ? Math.max(0, fence.dwellSeconds()) * 1000L : 0;
+        latitudes[i] = new double[polygon.size()];
+        longitudes[i] = new double[polygon.size()];
+        for (int v = 0; v < polygon.size(); v++) {
+            double[] vertex = polygon.get(v);
+            if (vertex.length != 2) {
+                throw new IllegalArgumentException("Geofence " + name + " vertex must be [latitude, longitude]");
+            }
+            latitudes[i][v] = vertex[0];
+            longitudes[i][v] = vertex[1];
+        }
+        minLat[i] = Arrays.stream(latitudes[i]).min().getAsDouble();
+        maxLat[i] = Arrays.stream(latitudes[i]).max().getAsDouble();
+        minLon[i] = Arrays.stream(longitudes[i]).min().getAsDouble();
+        maxLon[i] = Arrays.stream(longitudes[i]).max().getAsDouble();
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((Math.max(-90.0, Math.min(90.0, latitude)) + 90.0) / cellSize);
+    }
+
+    private int col(double longitude) {
+        int col = (int) Math.floor((Math.max(-180.0, Math.min(180.0, longitude)) + 180.0) / cellSize);
+        // Longitude 180 would otherwise land in the first cell of the next row
+        return Math.min(cols - 1, col);
+    }
+}
@@ -0,0 +1,99 @@
+package com.fleetsync.ingest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs tasks on single-threaded lanes chosen by key, so each truck's tasks
+ * run in order. {@link #execute} blocks when a lane's queue is full.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class KeyedLaneExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyedLaneExecutor.class);
+
+    private final BlockingQueue<Runnable>[] queues;
+    private final Thread[] workers;
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public KeyedLaneExecutor(MeterRegistry registry,
+            @Value("${fleetsync.ingest.lanes:0}") int lanes,
+            @Value("${fleetsync.ingest.lane-queue-capacity:1024}") int queueCapacity) {
+        int laneCount = lanes > 0 ? lanes : Runtime.getRuntime().availableProcessors();
+        this.queues = new BlockingQueue[laneCount];
+        this.workers = new Thread[laneCount];
+
+        for (int i = 0; i < laneCount; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+            queues[i] = queue;
+            workers[i] = new Thread(() -> drain(queue), "ingest-lane-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        Gauge.builder("fleetsync.ingest.lane.queued", this, KeyedLaneExecutor::queued)
+                .description("Tasks waiting in the ingest lanes")
+                .register(registry);
+        log.info("Started {} ingest lanes with queue capacity {}", laneCount, queueCapacity);
+    }
+
+    /**
+     * Queues the task on the lane for {@code key}, waiting for space if that lane is full.
+     */
+    public void execute(Object key, Runnable task) {
+        int lane = Math.floorMod(key != null ? key.hashCode() : 0, queues.length);
+        try {
+            queues[lane].put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for ingest lane " + lane, e);
+        }
+    }
+
+    public int lanes() {
+        return queues.length;
+    }
+
+    public int queued() {
+        int total = 0;
+        for (BlockingQueue<Runnable> queue : queues) {
+            total += queue.size();
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void drain(BlockingQueue<Runnable> queue) {
+        while (running) {
+            Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Ingest task failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.fleetsync.ingest;
+
+import com.fleetsync.codec.TelemetryCodec;
+import com.fleetsync.metrics.PipelineMetrics;
+import com.fleetsync.metrics.PipelineMetrics.Stage;
+import com.fleetsync.model.TruckTelemetry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends telemetry to fleet-telemetry without blocking ingest on Kafka,
+ * spooling to disk when Kafka is slow or down. Delivery is at-least-once and
+ * in order per truck.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class TelemetryPublisher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryPublisher.class);
+
+    private static final String TOPIC = "fleet-telemetry";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final PipelineMetrics pipelineMetrics;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final boolean spoolEnabled;
+    private final Path spoolDirectory;
+    private final int segmentBytes;
+    private final long spoolMaxBytes;
+    private final int drainBatch;
+
+    private volatile TelemetrySpool spool;
+    // Failed direct sends, replayed before anything spooled after them
+    private volatile TelemetrySpool retrySpool;
+    // Direct sends not yet completed, including any spooling of their failure
+    private final AtomicInteger directSends = new AtomicInteger();
+    private volatile boolean running;
+    private volatile Thread drainer;
+
+    private final LongAdder spooled = new LongAdder();
+    private final LongAdder drained = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile double drainedPerSecond;
+    private long lastSampleDrained;
+    private long lastSampleNanos = System.nanoTime();
+
+    public TelemetryPublisher(ProducerFactory<String, Object> producerFactory, PipelineMetrics pipelineMetrics,
+            MeterRegistry registry,
+            @Value("${fleetsync.producer.max-block-ms:50}") long maxBlockMs,
+            @Value("${fleetsync.producer.request-timeout-ms:10000}") int requestTimeoutMs,
+            @Value("${fleetsync.producer.delivery-timeout-ms:30000}") int deliveryTimeoutMs,
+            @Value("${fleetsync.producer.max-in-flight:10000}") int maxInFlight,
+            @Value("${fleetsync.producer.spool.enabled:true}") boolean spoolEnabled,
+            @Value("${fleetsync.producer.spool.dir:data/spool}") String spoolDirectory,
+            @Value("${fleetsync.producer.spool.segment-bytes:67108864}") int segmentBytes,
+            @Value("${fleetsync.producer.spool.max-bytes:1073741824}") long spoolMaxBytes,
+            @Value("${fleetsync.producer.spool.drain-batch:500}") int drainBatch) {
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory, Map.of(
+                ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs,
+                ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, requestTimeoutMs,
+                ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs));
+        this.pipelineMetrics = pipelineMetrics;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.spoolEnabled = spoolEnabled;
+        this.spoolDirectory = Path.of(spoolDirectory);
+        this.segmentBytes = segmentBytes;
+        this.spoolMaxBytes = spoolMaxBytes;
+        this.drainBatch = drainBatch;
+
+        Gauge.builder("fleetsync.producer.in.flight", this, TelemetryPublisher::getInFlight)
+                .description("Telemetry sends awaiting a Kafka acknowledgement")
+                .register(registry);
+        Gauge.builder("fleetsync.producer.spool.depth", this, TelemetryPublisher::getSpoolDepth)
+                .description("Telemetry records waiting in the on-disk spool")
+                .register(registry);
+        Gauge.builder("fleetsync.producer.spool.bytes", this, TelemetryPublisher::getSpoolBytes)
+                .description("Disk space held by spool segments")
+                .register(registry);
+        FunctionCounter.builder("fleetsync.producer.spool.appended", spooled, LongAdder::sum)
+                .description("Telemetry records diverted to the spool")
+                .register(registry);
+        FunctionCounter.builder("fleetsync.producer.spool.drained", drained, LongAdder::sum)
+                .description("Spooled telemetry records delivered to Kafka")
+                .register(registry);
+        FunctionCounter.builder("fleetsync.producer.spool.dropped", dropped, LongAdder::sum)
+                .description("Telemetry records lost because the spool was full or unavailable")
+                .register(registry);
+    }
+
+    public void publish(TruckTelemetry telemetry) {
+        TelemetrySpool current = spool;
+        TelemetrySpool retry = retrySpool;
+        // Counted before the spools are checked, so the drainer can't start on them while this send is decided
+        directSends.incrementAndGet();
+        if (current == null || retry == null) {
+            // No spool to fall back on: wait for a slot rather than lose the reading
+            inFlight.acquireUninterruptibly();
+            send(telemetry);
+            return;
+        }
+        if (current.isEmpty() && retry.isEmpty() && inFlight.tryAcquire()) {
+            send(telemetry);
+        } else {
+            directSends.decrementAndGet();
+            spool(current, telemetry);
+        }
+    }
+
+    private void send(TruckTelemetry telemetry) {
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(TOPIC, telemetry.getTruckId(), telemetry);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            failed(telemetry, e);
+            return;
+        }
+        // Kafka completes sends to one partition in order, so a truck's failures are retry-spooled in order
+        future.whenComplete((result, ex) -> {
+            inFlight.release();
+            if (ex == null) {
+                pipelineMetrics.record(Stage.KAFKA_ACK, telemetry.getTimestamp());
+                directSends.decrementAndGet();
+            } else {
+                failed(telemetry, ex);
+            }
+        });
+    }
+
+    private void failed(TruckTelemetry telemetry, Throwable cause) {
+        pipelineMetrics.produceFailed();
+        log.debug("Send for {} failed, spooling it for retry", telemetry.getTruckId(), cause);
+        TelemetrySpool current = retrySpool;
+        if (current != null) {
+            spool(current, telemetry);
+        } else {
+            dropped.increment();
+        }
+        directSends.decrementAndGet();
+    }
+
+    private void spool(TelemetrySpool current, TruckTelemetry telemetry) {
+        try {
+            if (current.append(TelemetryCodec.encode(telemetry))) {
+                spooled.increment();
+                LockSupport.unpark(drainer);
+                return;
+            }
+        } catch (IOException e) {
+            log.error("Could not append to telemetry spool", e);
+        }
+        dropped.increment();
+    }
+
+    private void drain() {
+        while (running) {
+            // A direct send still outstanding may yet fail into the retry spool, ahead of what is spooled now
+            if (directSends.get() > 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            TelemetrySpool retry = retrySpool;
+            TelemetrySpool source = retry.isEmpty() ? spool : retry;
+            TelemetrySpool.Batch batch = source.read(drainBatch);
+            if (batch == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            try {
+                List<TruckTelemetry> readings = deliver(batch);
+                if (readings == null) {
+                    return; // Stopping; the batch is replayed on the next start
+                }
+                source.commit(batch);
+                drained.add(readings.size());
+                for (TruckTelemetry telemetry : readings) {
+                    pipelineMetrics.record(Stage.KAFKA_ACK, telemetry.getTimestamp());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Could not commit telemetry spool batch; it will be sent again", e);
+            }
+        }
+    }
+
+    /**
+     * Sends every record of the batch, resending only those whose send failed
+     * until all have been acknowledged.
+     *
+     * @return the delivered readings, or null if the publisher stopped first
+     */
+    private List<TruckTelemetry> deliver(TelemetrySpool.Batch batch) throws InterruptedException {
+        List<TruckTelemetry> readings = new ArrayList<>(batch.records().size());
+        for (byte[] record : batch.records()) {
+            try {
+                readings.add(TelemetryCodec.decode(record));
+            } catch (RuntimeException e) {
+                log.error("Dropping unreadable spooled record of {} bytes", record.length, e);
+                dropped.increment();
+            }
+        }
+
+        boolean[] acked = new boolean[readings.size()];
+        long backoff = 0;
+        while (true) {
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            Exception failure = null;
+            for (int i = 0; i < acked.length && failure == null; i++) {
+                if (acked[i]) {
+                    continue;
+                }
+                TruckTelemetry telemetry = readings.get(i);
+                int index = i;
+                inFlight.acquire();
+                try {
+                    futures.add(kafkaTemplate.send(TOPIC, telemetry.getTruckId(), telemetry)
+                            .whenComplete((result, ex) -> {
+                                inFlight.release();
+                                acked[index] = ex == null;
+                            }));
+                } catch (RuntimeException e) {
+                    // Later records wait for the next attempt so they stay behind this one
+                    inFlight.release();
+                    failure = e;
+                }
+            }
+            for (CompletableFuture<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failure = failure != null ? failure : e;
+                }
+            }
+            if (failure == null) {
+                if (backoff > 0) {
+                    log.info("Kafka recovered; draining telemetry spool ({} records waiting)", getSpoolDepth());
+                }
+                return readings;
+            }
+            if (!running) {
+                return null;
+            }
+            backoff = backoff == 0 ? INITIAL_BACKOFF_MS : Math.min(MAX_BACKOFF_MS, backoff * 2);
+            log.warn("Draining telemetry spool failed ({} records waiting); resending unacknowledged records in {} ms",
+                    getSpoolDepth(), backoff, failure);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+        }
+    }
+
+    @Override
+    public void start() {
+        if (spoolEnabled) {
+            try {
+                retrySpool = new TelemetrySpool(spoolDirectory.resolve("retry"), segmentBytes, spoolMaxBytes);
+                spool = new TelemetrySpool(spoolDirectory, segmentBytes, spoolMaxBytes);
+                if (getSpoolDepth() > 0) {
+                    log.info("Telemetry spool {} holds {} records from a previous run", spoolDirectory, getSpoolDepth());
+                }
+            } catch (IOException e) {
+                log.error("Could not open telemetry spool {}; sends will block when Kafka is slow", spoolDirectory, e);
+                close(retrySpool);
+                retrySpool = null;
+            }
+        }
+        running = true;
+        if (spool != null) {
+            drainer = new Thread(this::drain, "telemetry-spool-drainer");
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            try {
+                drainer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            drainer = null;
+        }
+        // Closes the producer once outstanding sends complete; failures still land in the open retry spool
+        kafkaTemplate.destroy();
+        close(spool);
+        close(retrySpool);
+        spool = null;
+        retrySpool = null;
+    }
+
+    private void close(TelemetrySpool current) {
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("Could not close telemetry spool {}", spoolDirectory, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the MQTT inbound adapters that feed it.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1000;
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void sampleDrainRate() {
+        long now = System.nanoTime();
+        long count = drained.sum();
+        drainedPerSecond = (count - lastSampleDrained) * 1_000_000_000.0 / (now - lastSampleNanos);
+        lastSampleDrained = count;
+        lastSampleNanos = now;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public long getSpoolDepth() {
+        TelemetrySpool current = spool;
+        TelemetrySpool retry = retrySpool;
+        return (current != null ? current.depth() : 0) + (retry != null ? retry.depth() : 0);
+    }
+
+    public long getSpoolBytes() {
+        TelemetrySpool current = spool;
+        TelemetrySpool retry = retrySpool;
+        return (current != null ? current.sizeBytes() : 0) + (retry != null ? retry.sizeBytes() : 0);
+    }
+
+    public long getSpooled() {
+        return spooled.sum();
+    }
+
+    public long getDrained() {
+        return drained.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public double getDrainedPerSecond() {
+        return drainedPerSecond;
+    }
+}
@@ -0,0 +1,235 @@
+package com.fleetsync.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only on-disk queue of records in memory-mapped segment files.
+ * Segment layout (big-endian): magic, committed read position, then (length,
+ * bytes) records.
+ *
+ * @author Shivam Srivastav
+ */
+public class TelemetrySpool implements Closeable {
+
+    private static final int MAGIC = 0x53504C31; // "SPL1"
+    private static final int COMMITTED_OFFSET = 4;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private long nextSegmentIndex;
+    private long depth;
+    private long sizeBytes;
+
+    private static final class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+        int committed;
+
+        Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Records read from the spool but not yet committed.
+     */
+    public static final class Batch {
+        private final Segment segment;
+        private final List<byte[]> records;
+        private final int endPosition;
+
+        private Batch(Segment segment, List<byte[]> records, int endPosition) {
+            this.segment = segment;
+            this.records = records;
+            this.endPosition = endPosition;
+        }
+
+        public List<byte[]> records() {
+            return records;
+        }
+    }
+
+    public TelemetrySpool(Path directory, int segmentBytes, long maxBytes) throws IOException {
+        if (segmentBytes <= HEADER_BYTES + Integer.BYTES) {
+            throw new IllegalArgumentException("Spool segments must be larger than " + (HEADER_BYTES + Integer.BYTES) + " bytes");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * @return false if the record doesn't fit in the spool's size limit
+     */
+    public synchronized boolean append(byte[] record) throws IOException {
+        int needed = Integer.BYTES + record.length;
+        if (needed > segmentBytes - HEADER_BYTES) {
+            return false;
+        }
+        Segment segment = segments.peekLast();
+        // A recovered segment may have been created with a different segment size
+        if (segment == null || segment.writePosition + needed > segment.buffer.capacity()) {
+            if (sizeBytes + segmentBytes > maxBytes) {
+                return false;
+            }
+            if (segment != null) {
+                segment.buffer.force();
+            }
+            segment = create(nextSegmentIndex++);
+            segments.addLast(segment);
+        }
+        int position = segment.writePosition;
+        segment.buffer.put(position + Integer.BYTES, record);
+        // Length last: until it is written the record is invisible, even after a crash
+        segment.buffer.putInt(position, record.length);
+        segment.writePosition = position + needed;
+        depth++;
+        return true;
+    }
+
+    /**
+     * Up to {@code max} records from the committed position, or null if the
+     * spool is empty. Reading again before committing returns the same records.
+     */
+    public synchronized Batch read(int max) {
+        for (Segment segment : segments) {
+            if (segment.committed >= segment.writePosition) {
+                continue;
+            }
+            List<byte[]> records = new ArrayList<>(Math.min(max, 1024));
+            int position = segment.committed;
+            while (records.size() < max && position < segment.writePosition) {
+                byte[] record = new byte[segment.buffer.getInt(position)];
+                segment.buffer.get(position + Integer.BYTES, record);
+                records.add(record);
+                position += Integer.BYTES + record.length;
+            }
+            return new Batch(segment, records, position);
+        }
+        return null;
+    }
+
+    public synchronized void commit(Batch batch) throws IOException {
+        Segment segment = batch.segment;
+        if (batch.endPosition <= segment.committed) {
+            return;
+        }
+        segment.committed = batch.endPosition;
+        segment.buffer.putInt(COMMITTED_OFFSET, segment.committed);
+        depth -= batch.records.size();
+
+        // Drop fully delivered segments from the head, but keep the one still being written
+        while (segments.size() > 1 && segments.peekFirst().committed >= segments.peekFirst().writePosition) {
+            delete(segments.pollFirst());
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return depth == 0;
+    }
+
+    /**
+     * Records appended but not yet committed.
+     */
+    public synchronized long depth() {
+        return depth;
+    }
+
+    /**
+     * Disk space held by segment files.
+     */
+    public synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+        sizeBytes = 0;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "spool-*.seg")) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+
+        for (Path path : files) {
+            long index = Long.parseLong(path.getFileName().toString().replace("spool-", "").replace(".seg", ""));
+            nextSegmentIndex = Math.max(nextSegmentIndex, index + 1);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            Segment segment = new Segment(path, channel, buffer);
+            if (channel.size() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                channel.close();
+                Files.delete(path);
+                continue;
+            }
+            segment.committed = Math.max(HEADER_BYTES, buffer.getInt(COMMITTED_OFFSET));
+
+            // Records before the committed position are valid too; scan from there to the end
+            int position = segment.committed;
+            while (position + Integer.BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + Integer.BYTES + length > buffer.capacity()) {
+                    break;
+                }
+                position += Integer.BYTES + length;
+                depth++;
+            }
+            segment.writePosition = position;
+            sizeBytes += buffer.capacity();
+
+            if (segment.committed >= segment.writePosition) {
+                delete(segment);
+            } else {
+                segments.addLast(segment);
+            }
+        }
+    }
+
+    private Segment create(long index) throws IOException {
+        Path path = directory.resolve(String.format("spool-%016d.seg", index));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(COMMITTED_OFFSET, HEADER_BYTES);
+        Segment segment = new Segment(path, channel, buffer);
+        segment.writePosition = HEADER_BYTES;
+        segment.committed = HEADER_BYTES;
+        sizeBytes += segmentBytes;
+        return segment;
+    }
+
+    private void delete(Segment segment) throws IOException {
+        sizeBytes -= segment.buffer.capacity();
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+    }
+}
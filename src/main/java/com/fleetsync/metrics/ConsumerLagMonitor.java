@@ -0,0 +1,147 @@
+package com.fleetsync.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ConsumerGroupDescription;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls our consumer groups' offsets and publishes per-partition lag as
+ * fleetsync.kafka.consumer.lag.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class ConsumerLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsumerLagMonitor.class);
+    private static final long TIMEOUT_SECONDS = 5;
+
+    public record PartitionLag(String topic, int partition, long committedOffset, long endOffset, long lag) {
+    }
+
+    public record GroupLag(String groupId, String state, int members, long totalLag, List<PartitionLag> partitions) {
+    }
+
+    private final KafkaAdmin kafkaAdmin;
+    private final List<String> groups;
+    private final MultiGauge lagGauge;
+
+    private AdminClient adminClient;
+    private volatile Map<String, GroupLag> latest = Map.of();
+    private volatile long updatedAt;
+    private volatile String lastError;
+
+    public ConsumerLagMonitor(KafkaAdmin kafkaAdmin, MeterRegistry registry,
+            @Value("${fleetsync.metrics.lag-groups:fleetsync-dashboard,fleetsync-database,fleetsync-analytics,fleetsync-alerts}") List<String> groups) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.groups = groups;
+        this.lagGauge = MultiGauge.builder("fleetsync.kafka.consumer.lag")
+                .description("Messages between the group's committed offset and the partition end offset")
+                .register(registry);
+    }
+
+    @Scheduled(fixedRateString = "${fleetsync.metrics.lag-interval-ms:10000}")
+    public void refresh() {
+        try {
+            AdminClient admin = admin();
+            Map<String, GroupLag> result = new LinkedHashMap<>();
+            List<MultiGauge.Row<?>> rows = new ArrayList<>();
+
+            Map<String, ConsumerGroupDescription> descriptions = admin.describeConsumerGroups(groups).all()
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            for (String group : groups) {
+                Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(group)
+                        .partitionsToOffsetAndMetadata().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+                committed.keySet().forEach(tp -> request.put(tp, OffsetSpec.latest()));
+                Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = request.isEmpty()
+                        ? Map.of()
+                        : admin.listOffsets(request).all().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                List<PartitionLag> partitions = new ArrayList<>();
+                long totalLag = 0;
+                for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : committed.entrySet()) {
+                    TopicPartition tp = entry.getKey();
+                    if (entry.getValue() == null || !ends.containsKey(tp)) {
+                        continue;
+                    }
+                    long committedOffset = entry.getValue().offset();
+                    long endOffset = ends.get(tp).offset();
+                    long lag = Math.max(0, endOffset - committedOffset);
+                    totalLag += lag;
+                    partitions.add(new PartitionLag(tp.topic(), tp.partition(), committedOffset, endOffset, lag));
+                    rows.add(MultiGauge.Row.of(
+                            Tags.of("group", group, "topic", tp.topic(), "partition", String.valueOf(tp.partition())),
+                            lag));
+                }
+                partitions.sort(Comparator.comparing(PartitionLag::topic).thenComparingInt(PartitionLag::partition));
+
+                ConsumerGroupDescription description = descriptions.get(group);
+                result.put(group, new GroupLag(group,
+                        description != null ? description.state().toString() : "UNKNOWN",
+                        description != null ? description.members().size() : 0,
+                        totalLag, partitions));
+            }
+
+            lagGauge.register(rows, true);
+            latest = result;
+            updatedAt = System.currentTimeMillis();
+            lastError = null;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            lastError = e.getMessage();
+            log.debug("Could not refresh consumer lag", e);
+        }
+    }
+
+    public Map<String, GroupLag> getLatest() {
+        return latest;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    private synchronized AdminClient admin() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.fleetsync.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage pipeline latency from the device timestamp, exported as
+ * fleetsync.pipeline.latency{stage=...}.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum Stage {
+        MQTT_RECEIVE("mqtt_receive"),
+        KAFKA_ACK("kafka_ack"),
+        DASHBOARD_CONSUME("dashboard_consume"),
+        WEBSOCKET_SEND("websocket_send"),
+        DB_COMMIT("db_commit");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    public static final String LATENCY_METRIC = "fleetsync.pipeline.latency";
+
+    private final Timer[] timers = new Timer[Stage.values().length];
+    private final Counter produceErrors;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            timers[stage.ordinal()] = Timer.builder(LATENCY_METRIC)
+                    .description("Time from the device timestamp until the reading reached this stage")
+                    .tag("stage", stage.tag())
+                    .publishPercentileHistogram()
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(1))
+                    .register(registry);
+        }
+        produceErrors = Counter.builder("fleetsync.kafka.produce.errors")
+                .description("Telemetry records the Kafka producer failed to deliver")
+                .register(registry);
+    }
+
+    public void record(Stage stage, long eventTimestampMillis) {
+        long latency = System.currentTimeMillis() - eventTimestampMillis;
+        // Device clocks can run ahead of ours; negative samples would only skew the histogram
+        if (latency >= 0) {
+            timers[stage.ordinal()].record(latency, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public Timer timer(Stage stage) {
+        return timers[stage.ordinal()];
+    }
+
+    public void produceFailed() {
+        produceErrors.increment();
+    }
+}
@@ -0,0 +1,36 @@
+package com.fleetsync.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset pagination token: the (timestamp, id) of the last row returned.
+ *
+ * @author Shivam Srivastav
+ */
+public record TelemetryCursor(long timestamp, long id) {
+
+    /**
+     * Sorts after every real row, i.e. the start of the first page.
+     */
+    public static final TelemetryCursor FIRST = new TelemetryCursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    public String encode() {
+        String raw = timestamp + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TelemetryCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new TelemetryCursor(Long.parseLong(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.fleetsync.repository;
+
+import com.fleetsync.entity.TruckTelemetryEntity;
+import com.fleetsync.model.TruckTelemetry;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access to truck_telemetry for the paths JPA is too slow for. Readings
+ * already stored for the same truck and timestamp are skipped.
+ *
+ * @author Shivam Srivastav
+ */
+@Repository
+public class TelemetryJdbcRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO truck_telemetry "
+            + "(id, truck_key, latitude, longitude, speed, engine_temp, fuel_level, timestamp, created_at) "
+            + "VALUES (nextval('truck_telemetry_id_seq'), ?, ?, ?, ?, ?, ?, ?, ?) "
+            // Telemetry reaches Kafka at least once; (truck_key, timestamp) identifies the reading
+            + "ON CONFLICT (truck_key, timestamp) DO NOTHING";
+
+    private static final String RANGE_SQL = "SELECT id, truck_key, latitude, longitude, speed, engine_temp, fuel_level, timestamp, created_at "
+            + "FROM truck_telemetry WHERE timestamp >= ? AND timestamp < ?";
+
+    private static final String UPSERT_OFFSET_SQL = "INSERT INTO kafka_sink_offset "
+            + "(consumer_group, topic, partition_id, next_offset) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (consumer_group, topic, partition_id) DO UPDATE SET next_offset = EXCLUDED.next_offset";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TruckDirectory truckDirectory;
+
+    public TelemetryJdbcRepository(JdbcTemplate jdbcTemplate, TruckDirectory truckDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.truckDirectory = truckDirectory;
+    }
+
+    /**
+     * Inserts all rows in one transaction; the batch is durable once this returns.
+     */
+    @Transactional
+    public void insertBatch(List<TruckTelemetry> batch) {
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        int[] truckKeys = new int[batch.size()];
+        for (int i = 0; i < truckKeys.length; i++) {
+            truckKeys[i] = truckDirectory.keyFor(batch.get(i).getTruckId());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                TruckTelemetry telemetry = batch.get(i);
+                ps.setInt(1, truckKeys[i]);
+                ps.setDouble(2, telemetry.getLatitude());
+                ps.setDouble(3, telemetry.getLongitude());
+                ps.setDouble(4, telemetry.getSpeed());
+                ps.setDouble(5, telemetry.getEngineTemp());
+                ps.setDouble(6, telemetry.getFuelLevel());
+                ps.setLong(7, telemetry.getTimestamp());
+                ps.setTimestamp(8, createdAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    /**
+     * Inserts one partition's rows and records {@code nextOffset} as that
+     * partition's position in the same transaction, so rows and offset are
+     * either both durable or both rolled back.
+     */
+    @Transactional
+    public void insertBatch(List<TruckTelemetry> batch, String consumerGroup, String topic, int partition,
+            long nextOffset) {
+        insertBatch(batch);
+        jdbcTemplate.update(UPSERT_OFFSET_SQL, consumerGroup, topic, partition, nextOffset);
+    }
+
+    /**
+     * @return next offset to write per partition, for partitions that have been written before
+     */
+    public Map<Integer, Long> findSinkOffsets(String consumerGroup, String topic) {
+        Map<Integer, Long> offsets = new HashMap<>();
+        jdbcTemplate.query("SELECT partition_id, next_offset FROM kafka_sink_offset WHERE consumer_group = ? AND topic = ?",
+                (RowCallbackHandler) rs -> offsets.put(rs.getInt("partition_id"), rs.getLong("next_offset")),
+                consumerGroup, topic);
+        return offsets;
+    }
+
+    /**
+     * Streams rows in [from, to) in timestamp order through a forward-only
+     * cursor. PostgreSQL only honours the fetch size inside a transaction,
+     * hence the read-only transaction around the query.
+     */
+    @Transactional(readOnly = true)
+    public void streamRange(long from, long to, String truckId, int fetchSize, Consumer<TruckTelemetryEntity> consumer) {
+        Integer truckKey = truckId != null ? truckDirectory.findKey(truckId) : null;
+        if (truckId != null && truckKey == null) {
+            return; // Truck has never reported
+        }
+        String sql = RANGE_SQL + (truckKey != null ? " AND truck_key = ?" : "") + " ORDER BY timestamp";
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            if (truckKey != null) {
+                ps.setInt(3, truckKey);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs)));
+    }
+
+    private TruckTelemetryEntity mapRow(ResultSet rs) throws SQLException {
+        int truckKey = rs.getInt("truck_key");
+        TruckTelemetryEntity entity = new TruckTelemetryEntity(
+                truckDirectory.idFor(truckKey),
+                rs.getObject("latitude", Double.class),
+                rs.getObject("longitude", Double.class),
+                rs.getObject("speed", Double.class),
+                rs.getObject("engine_temp", Double.class),
+                rs.getObject("fuel_level", Double.class),
+                rs.getLong("timestamp"));
+        entity.setId(rs.getLong("id"));
+        entity.setTruckKey(truckKey);
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        entity.setCreatedAt(createdAt != null ? createdAt.toInstant() : null);
+        return entity;
+    }
+}
@@ -1,8 +1,9 @@
 package com.fleetsync.repository;
 
 import com.fleetsync.entity.TruckTelemetryEntity;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,11 +11,22 @@ import java.util.List;
 @Repository
 public interface TelemetryRepository extends JpaRepository<TruckTelemetryEntity, Long> {
 
-    // Find by time range with pagination
-    List<TruckTelemetryEntity> findByTimestampBetween(Long from, Long to, Pageable pageable);
+    // Keyset pages by time range, newest first; (timestamp, id) < cursor walks idx_timestamp_id
+    @Query(value = "SELECT * FROM truck_telemetry WHERE timestamp BETWEEN :from AND :to "
+            + "AND (timestamp, id) < (:cursorTimestamp, :cursorId) "
+            + "ORDER BY timestamp DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<TruckTelemetryEntity> findPageByTimestampBetween(@Param("from") long from, @Param("to") long to,
+            @Param("cursorTimestamp") long cursorTimestamp, @Param("cursorId") long cursorId,
+            @Param("limit") int limit);
 
-    // Find by truck ID with pagination
-    List<TruckTelemetryEntity> findByTruckId(String truckId, Pageable pageable);
+    // Keyset pages for one truck, newest first: a range scan of idx_truck_key_timestamp in index order
+    // (no sort), then one heap fetch per returned row since SELECT * needs columns the index lacks
+    @Query(value = "SELECT * FROM truck_telemetry WHERE truck_key = :truckKey "
+            + "AND (timestamp, id) < (:cursorTimestamp, :cursorId) "
+            + "ORDER BY timestamp DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<TruckTelemetryEntity> findPageByTruckKey(@Param("truckKey") int truckKey,
+            @Param("cursorTimestamp") long cursorTimestamp, @Param("cursorId") long cursorId,
+            @Param("limit") int limit);
 
     // Legacy methods (optional, keeping if needed)
     List<TruckTelemetryEntity> findTop100ByOrderByTimestampDesc();
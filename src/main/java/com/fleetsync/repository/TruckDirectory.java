@@ -0,0 +1,82 @@
+package com.fleetsync.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Truck id to integer key dictionary backed by the truck table and cached in
+ * memory. Entries never change, so the cache needs no invalidation.
+ *
+ * @author Shivam Srivastav
+ */
+@Repository
+public class TruckDirectory {
+
+    // Returns the key whether the row is new or already there (DO NOTHING would return no row)
+    private static final String UPSERT_SQL = "INSERT INTO truck (truck_id) VALUES (?) "
+            + "ON CONFLICT (truck_id) DO UPDATE SET truck_id = EXCLUDED.truck_id RETURNING truck_key";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Integer> keys = new ConcurrentHashMap<>();
+    private final Map<Integer, String> ids = new ConcurrentHashMap<>();
+
+    public TruckDirectory(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Key for the truck, registering it on first sight. Registration commits
+     * in its own transaction so a cached key is never rolled back along with
+     * the caller's batch.
+     */
+    public int keyFor(String truckId) {
+        Integer key = keys.get(truckId);
+        if (key == null) {
+            key = newTransaction.execute(status -> jdbcTemplate.queryForObject(UPSERT_SQL, Integer.class, truckId));
+            remember(truckId, key);
+        }
+        return key;
+    }
+
+    /**
+     * Key for a truck that may not exist; null if it has never reported.
+     */
+    public Integer findKey(String truckId) {
+        Integer key = keys.get(truckId);
+        if (key == null) {
+            List<Integer> found = jdbcTemplate.queryForList(
+                    "SELECT truck_key FROM truck WHERE truck_id = ?", Integer.class, truckId);
+            if (found.isEmpty()) {
+                return null;
+            }
+            key = found.get(0);
+            remember(truckId, key);
+        }
+        return key;
+    }
+
+    public String idFor(int truckKey) {
+        String truckId = ids.get(truckKey);
+        if (truckId == null) {
+            truckId = jdbcTemplate.queryForObject(
+                    "SELECT truck_id FROM truck WHERE truck_key = ?", String.class, truckKey);
+            remember(truckId, truckKey);
+        }
+        return truckId;
+    }
+
+    private void remember(String truckId, Integer key) {
+        keys.put(truckId, key);
+        ids.put(key, truckId);
+    }
+}
@@ -0,0 +1,84 @@
+package com.fleetsync.service;
+
+import com.fleetsync.alert.AlertRuleEngine;
+import com.fleetsync.alert.AlertText;
+import com.fleetsync.geofence.GeofenceEngine;
+import com.fleetsync.model.TruckTelemetry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Threshold and geofence alerts, evaluated in their own consumer group so
+ * each truck's readings arrive in order on one thread.
+ *
+ * @author Shivam Srivastav
+ */
+@Service
+public class AlertService {
+
+    public static final String GROUP_ID = "fleetsync-alerts";
+
+    private static final Logger log = LoggerFactory.getLogger(AlertService.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final AlertRuleEngine alertRuleEngine;
+    private final GeofenceEngine geofenceEngine;
+
+    // Newest evaluated timestamp per truck; written only by the thread that owns the truck's partition
+    private final Map<String, long[]> lastEvaluated = new ConcurrentHashMap<>();
+    private final LongAdder staleSkipped = new LongAdder();
+
+    public AlertService(KafkaTemplate<String, Object> kafkaTemplate, AlertRuleEngine alertRuleEngine,
+            GeofenceEngine geofenceEngine, MeterRegistry registry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.alertRuleEngine = alertRuleEngine;
+        this.geofenceEngine = geofenceEngine;
+        FunctionCounter.builder("fleetsync.alerts.stale.skipped", staleSkipped, LongAdder::sum)
+                .description("Readings not evaluated for alerts because they were not newer than the last one")
+                .register(registry);
+    }
+
+    // A new group starts at the end of the topic rather than alerting on the whole retained history
+    @KafkaListener(id = GROUP_ID, topics = "fleet-telemetry", groupId = GROUP_ID,
+            concurrency = "${fleetsync.kafka.listener-concurrency:3}", properties = "auto.offset.reset=latest")
+    public void consumeTelemetry(TruckTelemetry telemetry) {
+        long[] last = lastEvaluated.get(telemetry.getTruckId());
+        if (last == null) {
+            last = lastEvaluated.computeIfAbsent(telemetry.getTruckId(), id -> new long[] { Long.MIN_VALUE });
+        }
+        if (telemetry.getTimestamp() <= last[0]) {
+            staleSkipped.increment();
+            return;
+        }
+        last[0] = telemetry.getTimestamp();
+
+        // Allocation-free unless a rule or geofence just transitioned
+        long raised = alertRuleEngine.evaluate(telemetry);
+        List<String> geofenceEvents = geofenceEngine.evaluate(telemetry);
+        if (raised == 0 && geofenceEvents.isEmpty()) {
+            return;
+        }
+
+        List<String> types = alertRuleEngine.types(raised);
+        types.addAll(geofenceEvents);
+        String alertText = AlertText.format(telemetry.getTruckId(), types);
+
+        // Published to fleet-alerts; KafkaConsumerService caches it and relays it to /topic/alerts
+        kafkaTemplate.send("fleet-alerts", telemetry.getTruckId(), alertText);
+        log.warn("Alert raised: {}", alertText);
+    }
+
+    public long getStaleSkipped() {
+        return staleSkipped.sum();
+    }
+}
@@ -1,43 +1,272 @@
 package com.fleetsync.service;
 
-import com.fleetsync.entity.TruckTelemetryEntity;
+import com.fleetsync.metrics.PipelineMetrics;
 import com.fleetsync.model.TruckTelemetry;
-import com.fleetsync.repository.TelemetryRepository;
+import com.fleetsync.repository.TelemetryJdbcRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
+ * Database consumer - saves telemetry to PostgreSQL in batches, storing each
+ * partition's offset with its rows.
+ *
  * @author Shivam Srivastav
- *         Database consumer - saves telemetry to PostgreSQL
  */
 @Service
-public class DatabaseConsumerService {
+public class DatabaseConsumerService implements ConsumerSeekAware {
+
+    public static final String GROUP_ID = "fleetsync-database";
+    private static final String LISTENER_ID = "fleetsync-database-sink";
+    private static final String TOPIC = "fleet-telemetry";
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    // Stored offsets were read, but the database has none for the partition yet
+    private static final long NO_OFFSET = -1;
 
-    private final TelemetryRepository telemetryRepository;
+    private final TelemetryJdbcRepository telemetryJdbcRepository;
+    private final PipelineMetrics pipelineMetrics;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConsumerService.class);
 
-    public DatabaseConsumerService(TelemetryRepository telemetryRepository) {
-        this.telemetryRepository = telemetryRepository;
+    // Next offset to write per assigned partition, as stored in the database; absent until read
+    private final Map<TopicPartition, Long> nextOffsets = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Retry> retries = new ConcurrentHashMap<>();
+
+    private record Retry(int attempts, long resumeAtMillis) {
+    }
+
+    // Sink throughput, sampled once per second
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder duplicatesSkipped = new LongAdder();
+    private volatile int lastBatchSize;
+    private volatile double rowsPerSecond;
+    private long lastSampleRows;
+    private long lastSampleNanos = System.nanoTime();
+
+    public DatabaseConsumerService(TelemetryJdbcRepository telemetryJdbcRepository, PipelineMetrics pipelineMetrics,
+            KafkaListenerEndpointRegistry listenerRegistry, MeterRegistry registry) {
+        this.telemetryJdbcRepository = telemetryJdbcRepository;
+        this.pipelineMetrics = pipelineMetrics;
+        this.listenerRegistry = listenerRegistry;
+        FunctionCounter.builder("fleetsync.db.sink.rows", rowsWritten, LongAdder::sum)
+                .description("Telemetry rows committed to PostgreSQL")
+                .register(registry);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        Map<Integer, Long> stored;
+        try {
+            stored = telemetryJdbcRepository.findSinkOffsets(GROUP_ID, TOPIC);
+        } catch (DataAccessException e) {
+            // Left unread: writePartition reads them before the first insert
+            logger.warn("Could not read stored offsets for {}; they will be read before the first write",
+                    assignments.keySet(), e);
+            return;
+        }
+        for (TopicPartition partition : assignments.keySet()) {
+            Long offset = stored.get(partition.partition());
+            if (offset != null) {
+                callback.seek(partition.topic(), partition.partition(), offset);
+                nextOffsets.put(partition, offset);
+            } else {
+                nextOffsets.put(partition, NO_OFFSET);
+            }
+        }
+        logger.info("Assigned {}; resuming from stored offsets {}", assignments.keySet(), stored);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            nextOffsets.remove(partition);
+            if (retries.remove(partition) != null) {
+                container().resumePartition(partition);
+            }
+        }
+    }
+
+    @KafkaListener(id = LISTENER_ID, topics = TOPIC, groupId = GROUP_ID, containerFactory = "batchListenerContainerFactory")
+    public void saveTelemetry(List<ConsumerRecord<String, TruckTelemetry>> records, Consumer<?, ?> consumer) {
+        Map<TopicPartition, List<ConsumerRecord<String, TruckTelemetry>>> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<String, TruckTelemetry> record : records) {
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), tp -> new ArrayList<>())
+                    .add(record);
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> written = new HashMap<>();
+        for (Map.Entry<TopicPartition, List<ConsumerRecord<String, TruckTelemetry>>> entry : byPartition.entrySet()) {
+            TopicPartition partition = entry.getKey();
+            if (writePartition(partition, entry.getValue(), consumer)) {
+                written.put(partition, new OffsetAndMetadata(nextOffsets.get(partition)));
+            }
+        }
+
+        // The database is the source of truth; committing to Kafka only keeps lag metrics meaningful
+        if (!written.isEmpty()) {
+            consumer.commitAsync(written, null);
+        }
+    }
+
+    private boolean writePartition(TopicPartition partition, List<ConsumerRecord<String, TruckTelemetry>> records,
+            Consumer<?, ?> consumer) {
+        long nextOffset = records.get(records.size() - 1).offset() + 1;
+        Long stored = nextOffsets.get(partition);
+        if (stored == null) {
+            stored = loadStoredOffset(partition, records.get(0).offset(), nextOffset, consumer);
+            if (stored == null) {
+                return false;
+            }
+        }
+
+        List<TruckTelemetry> batch = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, TruckTelemetry> record : records) {
+            if (record.offset() < stored) {
+                duplicatesSkipped.increment(); // Already in the database
+            } else if (record.value() != null) {
+                batch.add(record.value());
+            } else {
+                // Failed to deserialize (see ErrorHandlingDeserializer); storing nothing moves past it
+                logger.warn("Skipping undecodable record {}@{}", partition, record.offset());
+            }
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        try {
+            telemetryJdbcRepository.insertBatch(batch, GROUP_ID, partition.topic(), partition.partition(), nextOffset);
+        } catch (DataAccessException e) {
+            long rewindTo = Math.max(stored, records.get(0).offset());
+            consumer.seek(partition, rewindTo);
+            Retry retry = scheduleRetry(partition);
+            logger.error("Error saving {} telemetry rows from {}; retrying from offset {} in {} ms",
+                    batch.size(), partition, rewindTo, retry.resumeAtMillis() - System.currentTimeMillis(), e);
+            return false;
+        }
+
+        nextOffsets.put(partition, nextOffset);
+        if (retries.remove(partition) != null) {
+            logger.info("Database writes for {} recovered", partition);
+        }
+        for (TruckTelemetry telemetry : batch) {
+            pipelineMetrics.record(PipelineMetrics.Stage.DB_COMMIT, telemetry.getTimestamp());
+        }
+        rowsWritten.add(batch.size());
+        batchesWritten.increment();
+        lastBatchSize = batch.size();
+        logger.debug("Saved batch of {} telemetry rows from {} to database", batch.size(), partition);
+        return true;
     }
 
-    @KafkaListener(topics = "fleet-telemetry", groupId = "fleetsync-database")
-    public void saveTelemetry(TruckTelemetry telemetry) {
+    /**
+     * Reads the partition's stored offset when it couldn't be read on
+     * assignment. If the fetched records don't start inside what the database
+     * already holds, the consumer is moved to the stored offset instead.
+     *
+     * @return the stored offset, or null if the records must not be written
+     */
+    private Long loadStoredOffset(TopicPartition partition, long firstOffset, long nextOffset,
+            Consumer<?, ?> consumer) {
+        long stored;
         try {
-            TruckTelemetryEntity entity = new TruckTelemetryEntity(
-                    telemetry.getTruckId(),
-                    telemetry.getLatitude(),
-                    telemetry.getLongitude(),
-                    telemetry.getSpeed(),
-                    telemetry.getEngineTemp(),
-                    telemetry.getFuelLevel(),
-                    telemetry.getTimestamp());
-
-            telemetryRepository.save(entity);
-            logger.debug("Saved telemetry for truck {} to database", telemetry.getTruckId());
-        } catch (Exception e) {
-            logger.error("Error saving telemetry to database", e);
+            stored = telemetryJdbcRepository.findSinkOffsets(GROUP_ID, TOPIC)
+                    .getOrDefault(partition.partition(), NO_OFFSET);
+        } catch (DataAccessException e) {
+            consumer.seek(partition, firstOffset);
+            Retry retry = scheduleRetry(partition);
+            logger.error("Could not read stored offset of {}; retrying in {} ms", partition,
+                    retry.resumeAtMillis() - System.currentTimeMillis(), e);
+            return null;
+        }
+        nextOffsets.put(partition, stored);
+
+        if (stored != NO_OFFSET && (stored < firstOffset || stored > nextOffset)) {
+            consumer.seek(partition, stored);
+            logger.info("Moved {} from offset {} to stored offset {}", partition, firstOffset, stored);
+            return null;
         }
+        return stored;
+    }
+
+    private Retry scheduleRetry(TopicPartition partition) {
+        Retry previous = retries.get(partition);
+        int attempts = previous != null ? previous.attempts() + 1 : 0;
+        long backoff = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(attempts, 16));
+        Retry retry = new Retry(attempts, System.currentTimeMillis() + backoff);
+        retries.put(partition, retry);
+        container().pausePartition(partition);
+        return retry;
+    }
+
+    @Scheduled(fixedDelay = 250)
+    public void resumeDuePartitions() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<TopicPartition, Retry> entry : retries.entrySet()) {
+            MessageListenerContainer container = container();
+            if (entry.getValue().resumeAtMillis() <= now && container.isPartitionPauseRequested(entry.getKey())) {
+                container.resumePartition(entry.getKey());
+            }
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void sampleThroughput() {
+        long now = System.nanoTime();
+        long rows = rowsWritten.sum();
+        rowsPerSecond = (rows - lastSampleRows) * 1_000_000_000.0 / (now - lastSampleNanos);
+        lastSampleRows = rows;
+        lastSampleNanos = now;
+    }
+
+    private MessageListenerContainer container() {
+        return listenerRegistry.getListenerContainer(LISTENER_ID);
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long getBatchesWritten() {
+        return batchesWritten.sum();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped.sum();
+    }
+
+    public List<String> getRetryingPartitions() {
+        return retries.keySet().stream().map(TopicPartition::toString).sorted().toList();
     }
 }
@@ -0,0 +1,208 @@
+package com.fleetsync.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.state.LiveFleetStore;
+import com.fleetsync.stats.FleetAggregator;
+import com.fleetsync.stats.MetricHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Versioned, pre-serialized fleet views for polling clients. The version
+ * doubles as an ETag and supports delta requests.
+ *
+ * @author Shivam Srivastav
+ */
+@Service
+public class FleetSnapshotService {
+
+    // Distinct since= values cached per version; anything beyond is built per request
+    private static final int MAX_CACHED_DELTAS = 64;
+    // Boot second shifted past ~1M versions per boot; stays below 2^53 so JavaScript clients read it exactly
+    private static final int EPOCH_SHIFT = 20;
+
+    private final LiveFleetStore liveFleetStore;
+    private final FleetAggregator fleetAggregator;
+    private final ObjectMapper objectMapper;
+    private final long intervalMillis;
+    private final int gzipMinBytes;
+    private final long epoch;
+
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private volatile Snapshot current;
+
+    /**
+     * Serialized body of one version; {@code gzip} is null when the body is
+     * too small to be worth compressing.
+     */
+    public record CachedBody(long version, byte[] json, byte[] gzip) {
+    }
+
+    private record TruckEntry(TruckTelemetry telemetry, long changedIn) {
+    }
+
+    private record Snapshot(long version, long builtAt, Map<String, TruckEntry> trucks, CachedBody fleet,
+            CachedBody stats, Map<Long, CachedBody> deltas) {
+    }
+
+    public FleetSnapshotService(LiveFleetStore liveFleetStore, FleetAggregator fleetAggregator,
+            ObjectMapper objectMapper,
+            @Value("${fleetsync.fleet-snapshot.interval-ms:1000}") long intervalMillis,
+            @Value("${fleetsync.fleet-snapshot.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.liveFleetStore = liveFleetStore;
+        this.fleetAggregator = fleetAggregator;
+        this.objectMapper = objectMapper;
+        this.intervalMillis = intervalMillis;
+        this.gzipMinBytes = gzipMinBytes;
+        this.epoch = (System.currentTimeMillis() / 1000) << EPOCH_SHIFT;
+        this.current = new Snapshot(epoch, 0, Map.of(), body(epoch, Map.of()), body(epoch, statsView()),
+                new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Every truck's latest reading, as a truckId to telemetry map.
+     */
+    public CachedBody trucks() {
+        return refresh().fleet();
+    }
+
+    public CachedBody stats() {
+        return refresh().stats();
+    }
+
+    /**
+     * Trucks that changed after version {@code since}. A version this
+     * instance never issued (e.g. from before a restart) gets the full fleet,
+     * flagged with {@code "full": true}.
+     */
+    public CachedBody trucksSince(long since) {
+        Snapshot snapshot = refresh();
+        CachedBody cached = snapshot.deltas().get(since);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean full = since < epoch || since > snapshot.version();
+        Map<String, TruckTelemetry> changed = new HashMap<>();
+        for (Map.Entry<String, TruckEntry> entry : snapshot.trucks().entrySet()) {
+            if (full || entry.getValue().changedIn() > since) {
+                changed.put(entry.getKey(), entry.getValue().telemetry());
+            }
+        }
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("version", snapshot.version());
+        delta.put("since", since);
+        delta.put("full", full);
+        delta.put("trucks", changed);
+
+        CachedBody body = body(snapshot.version(), delta);
+        if (snapshot.deltas().size() < MAX_CACHED_DELTAS) {
+            snapshot.deltas().putIfAbsent(since, body);
+        }
+        return body;
+    }
+
+    private Snapshot refresh() {
+        Snapshot snapshot = current;
+        if (System.currentTimeMillis() - snapshot.builtAt() < intervalMillis || !buildLock.tryLock()) {
+            // Fresh enough, or another request is already rebuilding it
+            return snapshot;
+        }
+        try {
+            snapshot = current;
+            long now = System.currentTimeMillis();
+            if (now - snapshot.builtAt() < intervalMillis) {
+                return snapshot;
+            }
+            current = build(snapshot, now);
+            return current;
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    private Snapshot build(Snapshot previous, long now) {
+        Map<String, TruckTelemetry> fleet = liveFleetStore.snapshot();
+        long version = previous.version() + 1;
+        Map<String, TruckEntry> trucks = new HashMap<>((int) (fleet.size() / 0.75f) + 1);
+        int changed = 0;
+        for (Map.Entry<String, TruckTelemetry> entry : fleet.entrySet()) {
+            TruckEntry before = previous.trucks().get(entry.getKey());
+            if (before != null && before.telemetry().getTimestamp() == entry.getValue().getTimestamp()) {
+                trucks.put(entry.getKey(), before);
+            } else {
+                trucks.put(entry.getKey(), new TruckEntry(entry.getValue(), version));
+                changed++;
+            }
+        }
+
+        if (changed == 0) {
+            // Nothing reported: keep the version, bytes and cached deltas, just restart the interval
+            return new Snapshot(previous.version(), now, previous.trucks(), previous.fleet(), previous.stats(),
+                    previous.deltas());
+        }
+        return new Snapshot(version, now, trucks, body(version, fleet), body(version, statsView()),
+                new ConcurrentHashMap<>());
+    }
+
+    private Map<String, Object> statsView() {
+        // Maintained incrementally on ingest, so this is a snapshot read rather than a fleet scan
+        FleetAggregator.Snapshot snapshot = fleetAggregator.snapshot();
+        Map<String, Object> stats = new HashMap<>();
+
+        stats.put("activeTrucks", snapshot.activeTrucks());
+        stats.put("averageSpeed", round(snapshot.speed().average()));
+        stats.put("averageEngineTemp", round(snapshot.engineTemp().average()));
+        stats.put("averageFuelLevel", round(snapshot.fuelLevel().average()));
+        stats.put("speed", distribution(snapshot.speed()));
+        stats.put("engineTemp", distribution(snapshot.engineTemp()));
+        stats.put("fuelLevel", distribution(snapshot.fuelLevel()));
+
+        return stats;
+    }
+
+    private static Map<String, Object> distribution(MetricHistogram.Summary summary) {
+        Map<String, Object> distribution = new HashMap<>();
+        distribution.put("min", round(summary.min()));
+        distribution.put("max", round(summary.max()));
+        distribution.put("p50", round(summary.p50()));
+        distribution.put("p95", round(summary.p95()));
+        distribution.put("p99", round(summary.p99()));
+        return distribution;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+
+    private CachedBody body(long version, Object value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new CachedBody(version, json, json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize fleet snapshot", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
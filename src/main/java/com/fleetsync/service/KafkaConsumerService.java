@@ -1,55 +1,114 @@
 package com.fleetsync.service;
 
+import com.fleetsync.alert.AlertStore;
+import com.fleetsync.metrics.PipelineMetrics;
 import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.spatial.FleetSpatialIndex;
+import com.fleetsync.state.LiveFleetCheckpoint;
+import com.fleetsync.state.LiveFleetStore;
+import com.fleetsync.stats.FleetAggregator;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-public class KafkaConsumerService {
+public class KafkaConsumerService implements ConsumerSeekAware {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final TelemetryBroadcaster telemetryBroadcaster;
+    private final FleetSpatialIndex spatialIndex;
+    private final FleetAggregator fleetAggregator;
+    private final AlertStore alertStore;
+    private final PipelineMetrics pipelineMetrics;
 
-    // In-memory cache for real-time state
-    private final Map<String, TruckTelemetry> latestTelemetry = new ConcurrentHashMap<>();
-    private final List<String> recentAlerts = Collections.synchronizedList(new ArrayList<>());
+    // In-memory real-time state (columnar; the consumed record is not retained)
+    private final LiveFleetStore liveFleetStore;
+    private final LiveFleetCheckpoint liveFleetCheckpoint;
 
-    public KafkaConsumerService(SimpMessagingTemplate messagingTemplate) {
+    public KafkaConsumerService(SimpMessagingTemplate messagingTemplate, TelemetryBroadcaster telemetryBroadcaster,
+            FleetSpatialIndex spatialIndex, FleetAggregator fleetAggregator, AlertStore alertStore,
+            PipelineMetrics pipelineMetrics, LiveFleetStore liveFleetStore, LiveFleetCheckpoint liveFleetCheckpoint) {
         this.messagingTemplate = messagingTemplate;
+        this.telemetryBroadcaster = telemetryBroadcaster;
+        this.spatialIndex = spatialIndex;
+        this.fleetAggregator = fleetAggregator;
+        this.alertStore = alertStore;
+        this.pipelineMetrics = pipelineMetrics;
+        this.liveFleetStore = liveFleetStore;
+        this.liveFleetCheckpoint = liveFleetCheckpoint;
     }
 
-    @KafkaListener(topics = "fleet-telemetry", groupId = "fleetsync-dashboard")
-    public void consumeTelemetry(TruckTelemetry telemetry) {
+    /**
+     * Resumes fleet-telemetry partitions from the restored checkpoint instead
+     * of the group's committed offsets, so the live state is complete without
+     * replaying the topic.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (TopicPartition partition : assignments.keySet()) {
+            if (!"fleet-telemetry".equals(partition.topic())) {
+                continue;
+            }
+            Long offset = liveFleetCheckpoint.restoredOffset(partition.partition());
+            if (offset != null) {
+                callback.seek(partition.topic(), partition.partition(), offset);
+            }
+        }
+    }
+
+    // Each truck's readings come from one partition, so per-truck state stays ordered across consumer threads
+    @KafkaListener(topics = "fleet-telemetry", groupId = "fleetsync-dashboard", concurrency = "${fleetsync.kafka.listener-concurrency:3}")
+    public void consumeTelemetry(TruckTelemetry telemetry,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition, @Header(KafkaHeaders.OFFSET) long offset) {
+        pipelineMetrics.record(PipelineMetrics.Stage.DASHBOARD_CONSUME, telemetry.getTimestamp());
+
         // Update local cache
-        latestTelemetry.put(telemetry.getTruckId(), telemetry);
+        TruckTelemetry previous = liveFleetStore.update(telemetry);
+        if (previous == telemetry) {
+            // Older than what the truck already reported (a replayed or reordered send)
+            liveFleetCheckpoint.applied(partition, offset);
+            return;
+        }
+        fleetAggregator.update(previous, telemetry);
+        spatialIndex.update(telemetry.getTruckId(), telemetry.getLatitude(), telemetry.getLongitude());
+        liveFleetCheckpoint.applied(partition, offset);
 
-        // Push to WebSocket
-        messagingTemplate.convertAndSend("/topic/telemetry", telemetry);
+        // Push to WebSocket (conflated, sent on the next broadcaster tick)
+        telemetryBroadcaster.offer(telemetry);
     }
 
     @KafkaListener(topics = "fleet-alerts", groupId = "fleetsync-dashboard")
     public void consumeAlert(String alert) {
         // Update local cache
-        recentAlerts.add(0, alert);
-        if (recentAlerts.size() > 50) {
-            recentAlerts.remove(recentAlerts.size() - 1);
-        }
+        alertStore.add(alert);
 
         // Push to WebSocket
         messagingTemplate.convertAndSend("/topic/alerts", alert);
     }
 
+    /**
+     * Copy of the latest reading of every truck.
+     */
     public Map<String, TruckTelemetry> getLatestTelemetry() {
-        return latestTelemetry;
+        return liveFleetStore.snapshot();
+    }
+
+    public TruckTelemetry getLatestTelemetry(String truckId) {
+        return liveFleetStore.get(truckId);
     }
 
     public List<String> getRecentAlerts() {
-        return new ArrayList<>(recentAlerts);
+        return alertStore.recent();
+    }
+
+    public List<String> getRecentAlerts(String truckId, String type, int limit) {
+        return alertStore.recent(truckId, type, limit);
     }
 }
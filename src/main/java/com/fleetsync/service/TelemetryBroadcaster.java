@@ -0,0 +1,98 @@
+package com.fleetsync.service;
+
+import com.fleetsync.metrics.PipelineMetrics;
+import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.spatial.MapTiles;
+import com.fleetsync.websocket.SubscriptionRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conflating WebSocket publisher: one frame per tick with the trucks that
+ * changed, sent only to destinations with subscribers.
+ *
+ * @author Shivam Srivastav
+ */
+@Service
+public class TelemetryBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private static final String FLEET_DESTINATION = "/topic/telemetry";
+    private static final String TRUCK_PREFIX = "/topic/telemetry/truck/";
+    private static final String REGION_PREFIX = "/topic/telemetry/region/";
+
+    private final PipelineMetrics pipelineMetrics;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final int regionZoom;
+
+    // Latest not-yet-published state per truck
+    private final Map<String, TruckTelemetry> pending = new ConcurrentHashMap<>();
+
+    public TelemetryBroadcaster(SimpMessagingTemplate messagingTemplate, PipelineMetrics pipelineMetrics,
+            SubscriptionRegistry subscriptionRegistry,
+            @Value("${fleetsync.websocket.region-zoom:12}") int regionZoom) {
+        this.messagingTemplate = messagingTemplate;
+        this.pipelineMetrics = pipelineMetrics;
+        this.subscriptionRegistry = subscriptionRegistry;
+        this.regionZoom = regionZoom;
+    }
+
+    public void offer(TruckTelemetry telemetry) {
+        pending.put(telemetry.getTruckId(), telemetry);
+    }
+
+    @Scheduled(fixedRateString = "${fleetsync.websocket.flush-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<TruckTelemetry> frame = new ArrayList<>(pending.size());
+        for (String truckId : pending.keySet()) {
+            // remove(key) hands back whatever is current, a later put simply lands in the next tick
+            TruckTelemetry telemetry = pending.remove(truckId);
+            if (telemetry != null) {
+                frame.add(telemetry);
+            }
+        }
+
+        if (frame.isEmpty()) {
+            return;
+        }
+
+        if (subscriptionRegistry.hasSubscribers(FLEET_DESTINATION)) {
+            messagingTemplate.convertAndSend(FLEET_DESTINATION, frame);
+        }
+        if (subscriptionRegistry.hasSubscribersUnder(TRUCK_PREFIX)) {
+            for (TruckTelemetry telemetry : frame) {
+                String destination = TRUCK_PREFIX + telemetry.getTruckId();
+                if (subscriptionRegistry.hasSubscribers(destination)) {
+                    messagingTemplate.convertAndSend(destination, List.of(telemetry));
+                }
+            }
+        }
+        if (subscriptionRegistry.hasSubscribersUnder(REGION_PREFIX)) {
+            Map<String, List<TruckTelemetry>> regions = new HashMap<>();
+            for (TruckTelemetry telemetry : frame) {
+                String destination = REGION_PREFIX
+                        + MapTiles.tileId(telemetry.getLatitude(), telemetry.getLongitude(), regionZoom);
+                if (subscriptionRegistry.hasSubscribers(destination)) {
+                    regions.computeIfAbsent(destination, key -> new ArrayList<>()).add(telemetry);
+                }
+            }
+            regions.forEach(messagingTemplate::convertAndSend);
+        }
+
+        for (TruckTelemetry telemetry : frame) {
+            pipelineMetrics.record(PipelineMetrics.Stage.WEBSOCKET_SEND, telemetry.getTimestamp());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.fleetsync.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.entity.TruckTelemetryEntity;
+import com.fleetsync.repository.TelemetryJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams historical telemetry from the database cursor to the response one
+ * row at a time.
+ *
+ * @author Shivam Srivastav
+ */
+@Service
+public class TelemetryExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final String CSV_HEADER = "id,truckId,latitude,longitude,speed,engineTemp,fuelLevel,timestamp,createdAt\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TelemetryJdbcRepository telemetryJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public TelemetryExportService(TelemetryJdbcRepository telemetryJdbcRepository, ObjectMapper objectMapper,
+            @Value("${fleetsync.export.fetch-size:5000}") int fetchSize) {
+        this.telemetryJdbcRepository = telemetryJdbcRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public void export(long from, long to, String truckId, Format format, boolean gzip, OutputStream out)
+            throws IOException {
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? gzipStream : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        try {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                telemetryJdbcRepository.streamRange(from, to, truckId, fetchSize, row -> writeCsv(writer, row));
+            } else {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                telemetryJdbcRepository.streamRange(from, to, truckId, fetchSize, row -> writeJson(generator, row));
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+    }
+
+    private static void writeJson(JsonGenerator generator, TruckTelemetryEntity row) {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.getId());
+            generator.writeStringField("truckId", row.getTruckId());
+            writeNumber(generator, "latitude", row.getLatitude());
+            writeNumber(generator, "longitude", row.getLongitude());
+            writeNumber(generator, "speed", row.getSpeed());
+            writeNumber(generator, "engineTemp", row.getEngineTemp());
+            writeNumber(generator, "fuelLevel", row.getFuelLevel());
+            generator.writeNumberField("timestamp", row.getTimestamp());
+            generator.writeStringField("createdAt", row.getCreatedAt() != null ? row.getCreatedAt().toString() : null);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, Double value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static void writeCsv(Writer writer, TruckTelemetryEntity row) {
+        try {
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(csvField(row.getTruckId()));
+            writer.write(',');
+            writer.write(csvNumber(row.getLatitude()));
+            writer.write(',');
+            writer.write(csvNumber(row.getLongitude()));
+            writer.write(',');
+            writer.write(csvNumber(row.getSpeed()));
+            writer.write(',');
+            writer.write(csvNumber(row.getEngineTemp()));
+            writer.write(',');
+            writer.write(csvNumber(row.getFuelLevel()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getTimestamp()));
+            writer.write(',');
+            writer.write(row.getCreatedAt() != null ? row.getCreatedAt().toString() : "");
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csvNumber(Double value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,36 @@
+package com.fleetsync.service;
+
+import com.fleetsync.repository.TelemetryJdbcRepository;
+import com.fleetsync.spatial.PathSimplifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds a truck's simplified path by streaming rows from PostgreSQL into the
+ * simplifier.
+ *
+ * @author Shivam Srivastav
+ */
+@Service
+public class TruckPathService {
+
+    private final TelemetryJdbcRepository telemetryJdbcRepository;
+    private final int fetchSize;
+    private final int chunkSize;
+
+    public TruckPathService(TelemetryJdbcRepository telemetryJdbcRepository,
+            @Value("${fleetsync.export.fetch-size:5000}") int fetchSize,
+            @Value("${fleetsync.history.path.chunk-size:10000}") int chunkSize) {
+        this.telemetryJdbcRepository = telemetryJdbcRepository;
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    public PathSimplifier simplifiedPath(String truckId, long from, long to, double toleranceMeters) {
+        PathSimplifier simplifier = new PathSimplifier(toleranceMeters, chunkSize);
+        telemetryJdbcRepository.streamRange(from, to, truckId, fetchSize,
+                row -> simplifier.add(row.getLatitude(), row.getLongitude(), row.getTimestamp()));
+        simplifier.finish();
+        return simplifier;
+    }
+}
@@ -0,0 +1,287 @@
+package com.fleetsync.service;
+
+import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.stats.TruckWindows;
+import com.fleetsync.stats.WindowResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-truck sliding and tumbling window aggregates in event time, published
+ * to the compacted fleet-analytics topic.
+ *
+ * @author Shivam Srivastav
+ */
+@Service
+public class WindowedAnalyticsService implements ConsumerSeekAware {
+
+    public static final String TOPIC = "fleet-analytics";
+    public static final String GROUP_ID = "fleetsync-analytics";
+
+    private static final Logger log = LoggerFactory.getLogger(WindowedAnalyticsService.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TruckWindows.Spec spec;
+    private final long retentionMillis;
+    private final long idlePartitionMillis;
+    private final long maxFutureSkewMillis;
+
+    private final Map<String, TruckState> trucks = new ConcurrentHashMap<>();
+    private final Map<Integer, PartitionClock> partitions = new ConcurrentHashMap<>();
+    private final AtomicLong watermark = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder lateDropped = new LongAdder();
+    private final LongAdder futureDropped = new LongAdder();
+    private final LongAdder aheadDropped = new LongAdder();
+    private final LongAdder windowsEmitted = new LongAdder();
+
+    public WindowedAnalyticsService(KafkaTemplate<String, Object> kafkaTemplate, MeterRegistry registry,
+            @Value("${fleetsync.analytics.pane-seconds:60}") int paneSeconds,
+            @Value("${fleetsync.analytics.sliding-panes:5}") int slidingPanes,
+            @Value("${fleetsync.analytics.tumbling-minutes:60}") int tumblingMinutes,
+            @Value("${fleetsync.analytics.allowed-lateness-seconds:30}") int allowedLatenessSeconds,
+            @Value("${fleetsync.analytics.history:24}") int history,
+            @Value("${fleetsync.analytics.idle-partition-seconds:60}") int idlePartitionSeconds,
+            @Value("${fleetsync.analytics.max-future-skew-seconds:60}") int maxFutureSkewSeconds) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.spec = new TruckWindows.Spec(paneSeconds * 1000L, slidingPanes, tumblingMinutes * 60_000L,
+                allowedLatenessSeconds * 1000L, history);
+        // Forget trucks once their whole tumbling history would have aged out
+        this.retentionMillis = spec.tumblingMillis() * history;
+        this.idlePartitionMillis = idlePartitionSeconds * 1000L;
+        this.maxFutureSkewMillis = maxFutureSkewSeconds * 1000L;
+
+        FunctionCounter.builder("fleetsync.analytics.late.dropped", lateDropped, LongAdder::sum)
+                .description("Readings dropped because their window had already closed")
+                .register(registry);
+        FunctionCounter.builder("fleetsync.analytics.future.dropped", futureDropped, LongAdder::sum)
+                .description("Readings ignored because their timestamp was too far ahead of the wall clock")
+                .register(registry);
+        FunctionCounter.builder("fleetsync.analytics.ahead.dropped", aheadDropped, LongAdder::sum)
+                .description("Readings dropped because they were too far ahead of their truck's closed windows")
+                .register(registry);
+        FunctionCounter.builder("fleetsync.analytics.windows.emitted", windowsEmitted, LongAdder::sum)
+                .description("Closed windows published to " + TOPIC)
+                .register(registry);
+        Gauge.builder("fleetsync.analytics.trucks", trucks, Map::size)
+                .description("Trucks with windowed state")
+                .register(registry);
+    }
+
+    /**
+     * Newest event time delivered by one partition. Each partition is consumed
+     * by one listener thread at a time, so fields have a single writer.
+     */
+    private static final class PartitionClock {
+        volatile long maxEventTime = Long.MIN_VALUE;
+        volatile long lastSeenMillis;
+
+        PartitionClock(long now) {
+            this.lastSeenMillis = now;
+        }
+    }
+
+    private record TruckState(int partition, TruckWindows windows) {
+    }
+
+    /**
+     * A newly assigned partition counts as active until the idle timeout, so
+     * it holds the watermark back until it has caught up.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        long now = System.currentTimeMillis();
+        for (TopicPartition partition : assignments.keySet()) {
+            partitions.put(partition.partition(), new PartitionClock(now));
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> revoked) {
+        for (TopicPartition partition : revoked) {
+            partitions.remove(partition.partition());
+        }
+    }
+
+    @KafkaListener(id = GROUP_ID, topics = "fleet-telemetry", groupId = GROUP_ID,
+            concurrency = "${fleetsync.kafka.listener-concurrency:3}", autoStartup = "${fleetsync.analytics.enabled:true}")
+    public void consumeTelemetry(TruckTelemetry telemetry, @Header(KafkaHeaders.RECEIVED_PARTITION) int partition) {
+        long now = System.currentTimeMillis();
+        long timestamp = telemetry.getTimestamp();
+        if (timestamp > now + maxFutureSkewMillis) {
+            futureDropped.increment();
+            return;
+        }
+        PartitionClock clock = partitions.computeIfAbsent(partition, p -> new PartitionClock(now));
+        if (timestamp > clock.maxEventTime) {
+            clock.maxEventTime = timestamp;
+        }
+        clock.lastSeenMillis = now;
+        long watermark = watermarkOf(clock, advanceWatermark(now));
+
+        TruckState state = trucks.get(telemetry.getTruckId());
+        if (state == null || state.partition() != partition) {
+            // New truck, or the topic's partition count changed and the truck hashed elsewhere
+            TruckWindows windows = state != null ? state.windows()
+                    : new TruckWindows(telemetry.getTruckId(), spec, watermark);
+            state = new TruckState(partition, windows);
+            trucks.put(telemetry.getTruckId(), state);
+        }
+        state.windows().advance(watermark, this::publish);
+        switch (state.windows().add(telemetry)) {
+            case LATE -> lateDropped.increment();
+            case AHEAD -> aheadDropped.increment();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * The watermark a partition's trucks follow: its own newest reading minus
+     * the allowed lateness, but never behind the fleet watermark.
+     */
+    private long watermarkOf(PartitionClock clock, long fleetWatermark) {
+        long maxEventTime = clock != null ? clock.maxEventTime : Long.MIN_VALUE;
+        if (maxEventTime == Long.MIN_VALUE) {
+            return fleetWatermark;
+        }
+        return Math.max(fleetWatermark, maxEventTime - spec.allowedLatenessMillis());
+    }
+
+    /**
+     * Moves the watermark to the slowest active partition's newest reading
+     * minus the allowed lateness. It never moves backwards.
+     */
+    private long advanceWatermark(long now) {
+        long slowest = Long.MAX_VALUE;
+        long newest = Long.MIN_VALUE;
+        for (PartitionClock clock : partitions.values()) {
+            long maxEventTime = clock.maxEventTime;
+            newest = Math.max(newest, maxEventTime);
+            if (now - clock.lastSeenMillis <= idlePartitionMillis) {
+                slowest = Math.min(slowest, maxEventTime);
+            }
+        }
+        // With every partition idle nothing is left to wait for
+        long low = slowest != Long.MAX_VALUE ? slowest : newest;
+        if (low == Long.MIN_VALUE) {
+            return watermark.get();
+        }
+        return watermark.accumulateAndGet(low - spec.allowedLatenessMillis(), Math::max);
+    }
+
+    /**
+     * Closes windows of trucks that have stopped reporting, since only a
+     * truck's own readings advance it on the listener thread.
+     */
+    @Scheduled(fixedDelayString = "${fleetsync.analytics.sweep-interval-ms:5000}")
+    public void sweep() {
+        // Also lets partitions that went quiet stop holding the watermark back
+        long fleetWatermark = advanceWatermark(System.currentTimeMillis());
+        int evicted = 0;
+        for (Map.Entry<String, TruckState> entry : trucks.entrySet()) {
+            long watermark = watermarkOf(partitions.get(entry.getValue().partition()), fleetWatermark);
+            if (watermark == Long.MIN_VALUE) {
+                continue;
+            }
+            TruckWindows windows = entry.getValue().windows();
+            windows.advance(watermark, this::publish);
+            if (windows.isIdle(watermark, retentionMillis) && trucks.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Dropped windowed state for {} idle trucks", evicted);
+        }
+    }
+
+    private void publish(WindowResult result) {
+        kafkaTemplate.send(TOPIC, result.truckId() + "/" + result.window(), result);
+        windowsEmitted.increment();
+    }
+
+    /**
+     * @return the event time up to which windows are closed, or Long.MIN_VALUE
+     *         until every active partition has delivered a reading
+     */
+    public long getWatermark() {
+        return watermark.get();
+    }
+
+    public TruckWindows.Spec getSpec() {
+        return spec;
+    }
+
+    public WindowResult getLatestSliding(String truckId) {
+        TruckState state = trucks.get(truckId);
+        return state != null ? state.windows().getLatestSliding() : null;
+    }
+
+    public List<WindowResult> getTumblingHistory(String truckId) {
+        TruckState state = trucks.get(truckId);
+        return state != null ? state.windows().getTumblingHistory() : List.of();
+    }
+
+    /**
+     * Latest closed window of the given kind for every truck, ordered by
+     * {@code sortBy} (descending), at most {@code limit} entries.
+     */
+    public List<WindowResult> getLatest(boolean sliding, Comparator<WindowResult> sortBy, int limit) {
+        List<WindowResult> results = new ArrayList<>();
+        for (TruckState state : trucks.values()) {
+            TruckWindows windows = state.windows();
+            WindowResult result;
+            if (sliding) {
+                result = windows.getLatestSliding();
+            } else {
+                List<WindowResult> history = windows.getTumblingHistory();
+                result = history.isEmpty() ? null : history.get(0);
+            }
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        results.sort(sortBy.reversed());
+        return results.size() > limit ? results.subList(0, limit) : results;
+    }
+
+    public int getTrackedTrucks() {
+        return trucks.size();
+    }
+
+    public long getLateDropped() {
+        return lateDropped.sum();
+    }
+
+    public long getFutureDropped() {
+        return futureDropped.sum();
+    }
+
+    public long getAheadDropped() {
+        return aheadDropped.sum();
+    }
+
+    public long getWindowsEmitted() {
+        return windowsEmitted.sum();
+    }
+}
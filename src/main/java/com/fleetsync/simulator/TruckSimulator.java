@@ -1,9 +1,16 @@
 package com.fleetsync.simulator;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.codec.TelemetryCodec;
 import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.spatial.FleetSpatialIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.integration.mqtt.support.MqttHeaders;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.MessageChannel;
@@ -13,79 +20,278 @@ import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
+ * Simulated fleet driving routes around New York, published by shard threads
+ * over MQTT or straight to the inbound channel.
+ *
  * @author Shivam Srivastav
  */
 @Component
-public class TruckSimulator {
+public class TruckSimulator implements SmartLifecycle {
 
     private static final Logger log = LoggerFactory.getLogger(TruckSimulator.class);
 
+    // Area the generated routes stay inside (New York)
+    private static final double MIN_LAT = 40.55;
+    private static final double MAX_LAT = 40.90;
+    private static final double MIN_LON = -74.15;
+    private static final double MAX_LON = -73.75;
+    private static final int MAX_ROUTES = 64;
+    private static final int WAYPOINTS_PER_ROUTE = 8;
+    private static final double KM_PER_MILE = 1.609344;
+    // How far a shard may fall behind schedule before it stops trying to catch up
+    private static final long MAX_BACKLOG_NANOS = TimeUnit.SECONDS.toNanos(1);
+
     private final MessageChannel mqttOutboundChannel;
+    private final MessageChannel mqttInboundChannel;
+    private final boolean binaryPayload;
+    private final boolean inProcess;
+    private final boolean enabled;
+    private final int truckCount;
+    private final double targetRate;
+    private final int shards;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final List<TruckTelemetry> trucks = new ArrayList<>();
-    private final Random random = new Random();
 
-    public TruckSimulator(MessageChannel mqttOutboundChannel) {
+    private final Counter published;
+    private final Counter failed;
+    private final Timer publishLatency;
+
+    // Route geometry shared by all trucks: waypoints and cumulative segment lengths
+    private double[][] routeLat;
+    private double[][] routeLon;
+    private double[][] segmentKm;
+
+    // Per-truck state; each shard only touches its own trucks
+    private TruckTelemetry[] trucks;
+    private int[] route;
+    private int[] segment;
+    private double[] segmentProgressKm;
+
+    private final List<Thread> shardThreads = new ArrayList<>();
+    private volatile boolean running;
+    private long lastReportCount;
+    private long lastReportNanos = System.nanoTime();
+
+    public TruckSimulator(MessageChannel mqttOutboundChannel, MessageChannel mqttInboundChannel, MeterRegistry registry,
+            @Value("${fleetsync.simulator.enabled:true}") boolean enabled,
+            @Value("${fleetsync.simulator.trucks:5}") int truckCount,
+            @Value("${fleetsync.simulator.target-rate:0}") double targetRate,
+            @Value("${fleetsync.simulator.shards:1}") int shards,
+            @Value("${fleetsync.simulator.mode:mqtt}") String mode,
+            @Value("${fleetsync.simulator.payload-format:binary}") String payloadFormat) {
         this.mqttOutboundChannel = mqttOutboundChannel;
+        this.mqttInboundChannel = mqttInboundChannel;
+        this.enabled = enabled;
+        this.truckCount = truckCount;
+        // Default pace: every truck reports once every 2 seconds
+        this.targetRate = targetRate > 0 ? targetRate : truckCount / 2.0;
+        this.shards = Math.max(1, Math.min(shards, truckCount));
+        this.inProcess = "in-process".equalsIgnoreCase(mode);
+        this.binaryPayload = "binary".equalsIgnoreCase(payloadFormat);
+
+        this.published = Counter.builder("fleetsync.simulator.published")
+                .description("Telemetry messages published by the simulator")
+                .register(registry);
+        this.failed = Counter.builder("fleetsync.simulator.failed")
+                .description("Telemetry messages the simulator failed to publish")
+                .register(registry);
+        this.publishLatency = Timer.builder("fleetsync.simulator.publish.latency")
+                .description("Time spent handing one message to the outbound channel")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || truckCount <= 0) {
+            return;
+        }
+        initFleet();
+        running = true;
+
+        double shardRate = targetRate / shards;
+        for (int shard = 0; shard < shards; shard++) {
+            int shardIndex = shard;
+            Thread thread = new Thread(() -> runShard(shardIndex, shardRate), "truck-simulator-" + shard);
+            thread.setDaemon(true);
+            thread.start();
+            shardThreads.add(thread);
+        }
+        log.info("Simulating {} trucks at {} msg/s over {} shard(s), {} mode, {} payloads",
+                truckCount, targetRate, shards, inProcess ? "in-process" : "mqtt", binaryPayload ? "binary" : "json");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread thread : shardThreads) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        shardThreads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
     }
 
-    // Initialize trucks
-    {
-        // New York area start points
-        trucks.add(new TruckTelemetry("TRUCK-001", 40.7128, -74.0060, 0, 80, 100, System.currentTimeMillis()));
-        trucks.add(new TruckTelemetry("TRUCK-002", 40.7300, -73.9900, 0, 82, 90, System.currentTimeMillis()));
-        trucks.add(new TruckTelemetry("TRUCK-003", 40.7500, -73.9800, 0, 85, 80, System.currentTimeMillis()));
-        trucks.add(new TruckTelemetry("TRUCK-004", 40.7800, -73.9500, 0, 78, 50, System.currentTimeMillis()));
-        trucks.add(new TruckTelemetry("TRUCK-005", 40.8000, -73.9600, 0, 75, 15, System.currentTimeMillis()));
+    @Scheduled(fixedRate = 10000)
+    public void reportRate() {
+        if (!running) {
+            return;
+        }
+        long now = System.nanoTime();
+        long count = (long) published.count();
+        double rate = (count - lastReportCount) * 1_000_000_000.0 / (now - lastReportNanos);
+        lastReportCount = count;
+        lastReportNanos = now;
+        log.info("Simulator published {} msg/s (target {}), publish latency mean {} us, max {} us",
+                Math.round(rate), Math.round(targetRate),
+                Math.round(publishLatency.mean(TimeUnit.MICROSECONDS)),
+                Math.round(publishLatency.max(TimeUnit.MICROSECONDS)));
+    }
+
+    private void initFleet() {
+        Random random = new Random(42);
+        int routes = Math.min(MAX_ROUTES, truckCount);
+        routeLat = new double[routes][WAYPOINTS_PER_ROUTE];
+        routeLon = new double[routes][WAYPOINTS_PER_ROUTE];
+        segmentKm = new double[routes][WAYPOINTS_PER_ROUTE];
+
+        for (int r = 0; r < routes; r++) {
+            for (int w = 0; w < WAYPOINTS_PER_ROUTE; w++) {
+                routeLat[r][w] = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+                routeLon[r][w] = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+            }
+            for (int w = 0; w < WAYPOINTS_PER_ROUTE; w++) {
+                int next = (w + 1) % WAYPOINTS_PER_ROUTE;
+                segmentKm[r][w] = FleetSpatialIndex.distanceKm(routeLat[r][w], routeLon[r][w],
+                        routeLat[r][next], routeLon[r][next]);
+            }
+        }
+
+        trucks = new TruckTelemetry[truckCount];
+        route = new int[truckCount];
+        segment = new int[truckCount];
+        segmentProgressKm = new double[truckCount];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < truckCount; i++) {
+            route[i] = i % routes;
+            segment[i] = random.nextInt(WAYPOINTS_PER_ROUTE);
+            segmentProgressKm[i] = random.nextDouble() * segmentKm[route[i]][segment[i]];
+            trucks[i] = new TruckTelemetry(String.format("TRUCK-%03d", i + 1), 0, 0,
+                    random.nextDouble() * 40, 75 + random.nextDouble() * 10, 15 + random.nextDouble() * 85, now);
+            applyPosition(i);
+        }
     }
 
-    @Scheduled(fixedRate = 2000) // Every 2 seconds
-    public void simulateTelemetry() {
-        for (TruckTelemetry truck : trucks) {
+    private void runShard(int shard, double rate) {
+        long intervalNanos = (long) (1_000_000_000L / Math.max(rate, 0.001));
+        long nextSend = System.nanoTime();
+        int truck = shard;
+
+        while (running) {
+            long now = System.nanoTime();
+            if (now < nextSend) {
+                LockSupport.parkNanos(nextSend - now);
+                continue;
+            }
+            // Don't burst to catch up after a long stall (GC, broker hiccup)
+            if (now - nextSend > MAX_BACKLOG_NANOS) {
+                nextSend = now;
+            }
+            nextSend += intervalNanos;
+
             updateTruckState(truck);
-            publishTelemetry(truck);
+            publishTelemetry(trucks[truck]);
+
+            truck += shards;
+            if (truck >= truckCount) {
+                truck = shard;
+            }
         }
     }
 
-    private void updateTruckState(TruckTelemetry truck) {
-        // Update timestamp
-        truck.setTimestamp(System.currentTimeMillis());
+    private void updateTruckState(int i) {
+        TruckTelemetry truck = trucks[i];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        double hours = Math.max(0, now - truck.getTimestamp()) / 3_600_000.0;
+        truck.setTimestamp(now);
 
-        // Simulate movement (random walk)
-        truck.setLatitude(truck.getLatitude() + (random.nextDouble() - 0.5) * 0.001);
-        truck.setLongitude(truck.getLongitude() + (random.nextDouble() - 0.5) * 0.001);
+        // Drive along the route at the current speed
+        advance(i, truck.getSpeed() * KM_PER_MILE * hours);
 
-        // Simulate speed (0-90 mph)
-        double speedChange = (random.nextDouble() - 0.5) * 10;
-        double newSpeed = Math.max(0, Math.min(95, truck.getSpeed() + speedChange));
-        truck.setSpeed(newSpeed);
+        // Simulate speed (0-95 mph), drifting towards a cruising speed
+        double speedChange = (random.nextDouble() - 0.5) * 10 + (55 - truck.getSpeed()) * 0.05;
+        truck.setSpeed(Math.max(0, Math.min(95, truck.getSpeed() + speedChange)));
 
-        // Simulate engine temp (80-110 C)
+        // Simulate engine temp (70-115 C)
         double tempChange = (random.nextDouble() - 0.5) * 2;
-        double newTemp = Math.max(70, Math.min(115, truck.getEngineTemp() + tempChange));
-        truck.setEngineTemp(newTemp);
+        truck.setEngineTemp(Math.max(70, Math.min(115, truck.getEngineTemp() + tempChange)));
 
         // Simulate fuel consumption
         double fuelConsumption = 0.05 + (truck.getSpeed() / 1000.0);
         truck.setFuelLevel(Math.max(0, truck.getFuelLevel() - fuelConsumption));
     }
 
+    private void advance(int i, double km) {
+        int r = route[i];
+        double progress = segmentProgressKm[i] + km;
+        int seg = segment[i];
+        while (progress >= segmentKm[r][seg]) {
+            progress -= segmentKm[r][seg];
+            seg = (seg + 1) % WAYPOINTS_PER_ROUTE;
+        }
+        segment[i] = seg;
+        segmentProgressKm[i] = progress;
+        applyPosition(i);
+    }
+
+    private void applyPosition(int i) {
+        int r = route[i];
+        int seg = segment[i];
+        int next = (seg + 1) % WAYPOINTS_PER_ROUTE;
+        double length = segmentKm[r][seg];
+        double fraction = length > 0 ? segmentProgressKm[i] / length : 0;
+        trucks[i].setLatitude(routeLat[r][seg] + (routeLat[r][next] - routeLat[r][seg]) * fraction);
+        trucks[i].setLongitude(routeLon[r][seg] + (routeLon[r][next] - routeLon[r][seg]) * fraction);
+    }
+
     private void publishTelemetry(TruckTelemetry truck) {
+        long start = System.nanoTime();
         try {
-            String payload = objectMapper.writeValueAsString(truck);
+            Object payload = binaryPayload ? TelemetryCodec.encode(truck) : objectMapper.writeValueAsString(truck);
             String topic = "fleet/trucks/" + truck.getTruckId();
 
-            mqttOutboundChannel.send(MessageBuilder
-                    .withPayload(payload)
-                    .setHeader(MqttHeaders.TOPIC, topic)
-                    .build());
-
-            // log.info("Published to {}: {}", topic, payload); // Verbose logging
+            if (inProcess) {
+                // Skip the broker: deliver as if the inbound adapter had received it
+                mqttInboundChannel.send(MessageBuilder
+                        .withPayload(payload)
+                        .setHeader(MqttHeaders.RECEIVED_TOPIC, topic)
+                        .build());
+            } else {
+                mqttOutboundChannel.send(MessageBuilder
+                        .withPayload(payload)
+                        .setHeader(MqttHeaders.TOPIC, topic)
+                        .build());
+            }
+            published.increment();
 
         } catch (Exception e) {
+            failed.increment();
             log.error("Failed to publish telemetry for {}", truck.getTruckId(), e);
+        } finally {
+            publishLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 }
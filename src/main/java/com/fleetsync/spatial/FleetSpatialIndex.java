@@ -0,0 +1,224 @@
+package com.fleetsync.spatial;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Uniform lat/lon grid over the live position of every truck.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class FleetSpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_KM;
+
+    private final double cellSize;
+    private final int rows;
+    private final int cols;
+
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+
+    private record Position(double latitude, double longitude, long cell) {
+    }
+
+    public record Neighbor(String truckId, double distanceKm) {
+    }
+
+    public FleetSpatialIndex(@Value("${fleetsync.spatial.cell-size-degrees:0.01}") double cellSize) {
+        this.cellSize = cellSize;
+        this.rows = (int) Math.ceil(180.0 / cellSize);
+        this.cols = (int) Math.ceil(360.0 / cellSize);
+    }
+
+    public void update(String truckId, double latitude, double longitude) {
+        long cell = cellOf(latitude, longitude);
+        Position previous = positions.put(truckId, new Position(latitude, longitude, cell));
+
+        if (previous == null || previous.cell() != cell) {
+            cells.compute(cell, (key, members) -> {
+                Set<String> set = members != null ? members : ConcurrentHashMap.newKeySet();
+                set.add(truckId);
+                return set;
+            });
+            if (previous != null) {
+                cells.computeIfPresent(previous.cell(), (key, members) -> {
+                    members.remove(truckId);
+                    return members.isEmpty() ? null : members;
+                });
+            }
+        }
+    }
+
+    public void remove(String truckId) {
+        Position previous = positions.remove(truckId);
+        if (previous != null) {
+            cells.computeIfPresent(previous.cell(), (key, members) -> {
+                members.remove(truckId);
+                return members.isEmpty() ? null : members;
+            });
+        }
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Trucks inside the box. Boxes crossing the antimeridian are not supported.
+     */
+    public List<String> within(double minLat, double minLon, double maxLat, double maxLon) {
+        List<String> result = new ArrayList<>();
+        int row0 = rowOf(minLat);
+        int row1 = rowOf(maxLat);
+        int col0 = colOf(minLon);
+        int col1 = colOf(maxLon);
+
+        long boxCells = (long) (row1 - row0 + 1) * (col1 - col0 + 1);
+        if (boxCells > cells.size()) {
+            // Large viewport over a sparse grid: cheaper to walk the occupied cells
+            for (Map.Entry<Long, Set<String>> entry : cells.entrySet()) {
+                collectWithin(entry.getKey(), entry.getValue(), minLat, minLon, maxLat, maxLon, result);
+            }
+            return result;
+        }
+
+        for (int row = row0; row <= row1; row++) {
+            for (int col = col0; col <= col1; col++) {
+                long cell = (long) row * cols + col;
+                Set<String> members = cells.get(cell);
+                if (members != null) {
+                    collectWithin(cell, members, minLat, minLon, maxLat, maxLon, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The k trucks closest to the point, nearest first. Searches rings of cells
+     * outwards from the point until no unvisited cell can hold a closer truck.
+     */
+    public List<Neighbor> nearest(double latitude, double longitude, int k) {
+        if (k <= 0 || positions.isEmpty()) {
+            return List.of();
+        }
+
+        // Max-heap on distance holding the best k candidates seen so far
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(k + 1,
+                Comparator.comparingDouble(Neighbor::distanceKm).reversed());
+        int centerRow = rowOf(latitude);
+        int centerCol = colOf(longitude);
+
+        for (int ring = 0;; ring++) {
+            long ringArea = (long) (2 * ring + 1) * (2 * ring + 1);
+            if (ringArea > 2L * cells.size() || ring > Math.max(rows, cols)) {
+                // Search area outgrew the occupied cells: finish with one pass over them
+                best.clear();
+                for (Map.Entry<Long, Set<String>> entry : cells.entrySet()) {
+                    offerCell(entry.getKey(), entry.getValue(), latitude, longitude, k, best);
+                }
+                break;
+            }
+
+            visitRing(centerRow, centerCol, ring, latitude, longitude, k, best);
+            if (best.size() == k && best.peek().distanceKm() <= minDistanceOutsideRing(latitude, ring)) {
+                break;
+            }
+        }
+
+        List<Neighbor> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbor::distanceKm));
+        return result;
+    }
+
+    private void visitRing(int centerRow, int centerCol, int ring, double latitude, double longitude,
+            int k, PriorityQueue<Neighbor> best) {
+        for (int dr = -ring; dr <= ring; dr++) {
+            int row = centerRow + dr;
+            if (row < 0 || row >= rows) {
+                continue;
+            }
+            // Interior rows only contribute their two edge cells
+            int step = (Math.abs(dr) == ring) ? 1 : Math.max(1, 2 * ring);
+            for (int dc = -ring; dc <= ring; dc += step) {
+                int col = Math.floorMod(centerCol + dc, cols);
+                long cell = (long) row * cols + col;
+                Set<String> members = cells.get(cell);
+                if (members != null) {
+                    offerCell(cell, members, latitude, longitude, k, best);
+                }
+            }
+        }
+    }
+
+    private void offerCell(long cell, Set<String> members, double latitude, double longitude,
+            int k, PriorityQueue<Neighbor> best) {
+        for (String truckId : members) {
+            Position position = positions.get(truckId);
+            // Skip trucks that have already moved on to another cell
+            if (position == null || position.cell() != cell) {
+                continue;
+            }
+            double distance = distanceKm(latitude, longitude, position.latitude(), position.longitude());
+            if (best.size() < k) {
+                best.add(new Neighbor(truckId, distance));
+            } else if (distance < best.peek().distanceKm()) {
+                best.poll();
+                best.add(new Neighbor(truckId, distance));
+            }
+        }
+    }
+
+    private void collectWithin(long cell, Set<String> members, double minLat, double minLon,
+            double maxLat, double maxLon, List<String> result) {
+        for (String truckId : members) {
+            Position position = positions.get(truckId);
+            if (position != null && position.cell() == cell
+                    && position.latitude() >= minLat && position.latitude() <= maxLat
+                    && position.longitude() >= minLon && position.longitude() <= maxLon) {
+                result.add(truckId);
+            }
+        }
+    }
+
+    // Lower bound on the distance from the query point to any cell outside the searched rings
+    private double minDistanceOutsideRing(double latitude, int ring) {
+        double degrees = ring * cellSize;
+        double highestLatitude = Math.min(90.0, Math.abs(latitude) + (ring + 1) * cellSize);
+        return degrees * KM_PER_DEGREE * Math.cos(Math.toRadians(highestLatitude));
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return (long) rowOf(latitude) * cols + colOf(longitude);
+    }
+
+    private int rowOf(double latitude) {
+        int row = (int) Math.floor((latitude + 90.0) / cellSize);
+        return Math.max(0, Math.min(rows - 1, row));
+    }
+
+    private int colOf(double longitude) {
+        int col = (int) Math.floor((longitude + 180.0) / cellSize);
+        return Math.max(0, Math.min(cols - 1, col));
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+    }
+}
@@ -0,0 +1,25 @@
+package com.fleetsync.spatial;
+
+/**
+ * Web Mercator tile ids, as used by Leaflet and OpenStreetMap, written as
+ * {@code zoom-x-y}.
+ *
+ * @author Shivam Srivastav
+ */
+public final class MapTiles {
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private MapTiles() {
+    }
+
+    public static String tileId(double latitude, double longitude, int zoom) {
+        int tiles = 1 << zoom;
+        double lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        int x = (int) Math.floor((longitude + 180.0) / 360.0 * tiles);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2 * tiles);
+        x = Math.max(0, Math.min(tiles - 1, x));
+        y = Math.max(0, Math.min(tiles - 1, y));
+        return zoom + "-" + x + "-" + y;
+    }
+}
@@ -0,0 +1,70 @@
+package com.fleetsync.spatial;
+
+/**
+ * Compact encodings for a simplified path.
+ *
+ * @author Shivam Srivastav
+ */
+public final class PathEncoding {
+
+    // 5 decimal places, roughly 1.1 m at the equator
+    private static final double SCALE = 1e5;
+
+    private PathEncoding() {
+    }
+
+    /**
+     * Google encoded polyline (precision 5), as understood by Leaflet and Google Maps plugins.
+     */
+    public static String polyline(double[] latitudes, double[] longitudes) {
+        StringBuilder encoded = new StringBuilder(latitudes.length * 8);
+        long previousLat = 0;
+        long previousLon = 0;
+        for (int i = 0; i < latitudes.length; i++) {
+            long latE5 = Math.round(latitudes[i] * SCALE);
+            long lonE5 = Math.round(longitudes[i] * SCALE);
+            encodeValue(latE5 - previousLat, encoded);
+            encodeValue(lonE5 - previousLon, encoded);
+            previousLat = latE5;
+            previousLon = lonE5;
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Coordinates scaled to integers (x 1e5), each value stored as the
+     * difference from the previous one; the first value is absolute.
+     */
+    public static long[] deltaScaled(double[] values) {
+        long[] deltas = new long[values.length];
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            long scaled = Math.round(values[i] * SCALE);
+            deltas[i] = scaled - previous;
+            previous = scaled;
+        }
+        return deltas;
+    }
+
+    /**
+     * Each value as the difference from the previous one; the first value is absolute.
+     */
+    public static long[] delta(long[] values) {
+        long[] deltas = new long[values.length];
+        long previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            deltas[i] = values[i] - previous;
+            previous = values[i];
+        }
+        return deltas;
+    }
+
+    private static void encodeValue(long value, StringBuilder out) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+}
@@ -0,0 +1,162 @@
+package com.fleetsync.spatial;
+
+import java.util.Arrays;
+
+/**
+ * Streaming Douglas-Peucker simplification of a time-ordered path in
+ * fixed-size chunks. Not thread-safe.
+ *
+ * @author Shivam Srivastav
+ */
+public final class PathSimplifier {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * 6_371_008.8;
+
+    private final double toleranceMeters;
+    private final double[] lat;
+    private final double[] lon;
+    private final long[] ts;
+    private final boolean[] keep;
+    private final int[] stack;
+    private int buffered;
+    private long pointsIn;
+
+    private double[] outLat = new double[64];
+    private double[] outLon = new double[64];
+    private long[] outTs = new long[64];
+    private int pointsOut;
+
+    public PathSimplifier(double toleranceMeters, int chunkSize) {
+        if (chunkSize < 2) {
+            throw new IllegalArgumentException("chunkSize must be at least 2");
+        }
+        this.toleranceMeters = toleranceMeters;
+        this.lat = new double[chunkSize];
+        this.lon = new double[chunkSize];
+        this.ts = new long[chunkSize];
+        this.keep = new boolean[chunkSize];
+        this.stack = new int[2 * chunkSize];
+    }
+
+    public void add(double latitude, double longitude, long timestamp) {
+        lat[buffered] = latitude;
+        lon[buffered] = longitude;
+        ts[buffered] = timestamp;
+        buffered++;
+        pointsIn++;
+
+        if (buffered == lat.length) {
+            simplifyBuffered(false);
+            // Carry the boundary point over as the start of the next chunk
+            lat[0] = lat[buffered - 1];
+            lon[0] = lon[buffered - 1];
+            ts[0] = ts[buffered - 1];
+            buffered = 1;
+        }
+    }
+
+    /**
+     * Simplifies whatever is still buffered; call once after the last point.
+     */
+    public void finish() {
+        if (buffered > 0) {
+            simplifyBuffered(true);
+            buffered = 0;
+        }
+    }
+
+    public long pointsIn() {
+        return pointsIn;
+    }
+
+    public int pointsOut() {
+        return pointsOut;
+    }
+
+    public double[] latitudes() {
+        return Arrays.copyOf(outLat, pointsOut);
+    }
+
+    public double[] longitudes() {
+        return Arrays.copyOf(outLon, pointsOut);
+    }
+
+    public long[] timestamps() {
+        return Arrays.copyOf(outTs, pointsOut);
+    }
+
+    private void simplifyBuffered(boolean includeLast) {
+        int n = buffered;
+        Arrays.fill(keep, 0, n, false);
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        // Project onto a local plane around the chunk's first point (metres)
+        double cosLat = Math.cos(Math.toRadians(lat[0]));
+
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int end = stack[--top];
+            int start = stack[--top];
+            if (end - start < 2) {
+                continue;
+            }
+
+            double ax = lon[start] * cosLat;
+            double ay = lat[start];
+            double bx = lon[end] * cosLat;
+            double by = lat[end];
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = segmentDistance(lon[i] * cosLat, lat[i], ax, ay, bx, by);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (maxDistance * METERS_PER_DEGREE > toleranceMeters) {
+                keep[farthest] = true;
+                stack[top++] = start;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = end;
+            }
+        }
+
+        int last = includeLast ? n : n - 1;
+        for (int i = 0; i < last; i++) {
+            if (keep[i]) {
+                emit(lat[i], lon[i], ts[i]);
+            }
+        }
+    }
+
+    // Distance from p to segment ab, in the projected degree units
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    private void emit(double latitude, double longitude, long timestamp) {
+        if (pointsOut == outLat.length) {
+            int capacity = pointsOut * 2;
+            outLat = Arrays.copyOf(outLat, capacity);
+            outLon = Arrays.copyOf(outLon, capacity);
+            outTs = Arrays.copyOf(outTs, capacity);
+        }
+        outLat[pointsOut] = latitude;
+        outLon[pointsOut] = longitude;
+        outTs[pointsOut] = timestamp;
+        pointsOut++;
+    }
+}
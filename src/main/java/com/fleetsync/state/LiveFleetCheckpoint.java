@@ -0,0 +1,177 @@
+package com.fleetsync.state;
+
+import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.spatial.FleetSpatialIndex;
+import com.fleetsync.stats.FleetAggregator;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Periodic checkpoint of the live fleet state to a memory-mapped file, tagged
+ * with the fleet-telemetry offsets it reflects.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class LiveFleetCheckpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveFleetCheckpoint.class);
+
+    private static final int MAGIC = 0x464C5431; // "FLT1"
+    private static final int VERSION = 1;
+    private static final int TRUCK_FIXED_BYTES = 2 + 5 * Double.BYTES + Long.BYTES;
+
+    private final LiveFleetStore liveFleetStore;
+    private final FleetAggregator fleetAggregator;
+    private final FleetSpatialIndex spatialIndex;
+    private final boolean enabled;
+    private final Path path;
+
+    // Next offset to consume per fleet-telemetry partition, as applied to the live store
+    private final Map<Integer, Long> appliedOffsets = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> restoredOffsets = new ConcurrentHashMap<>();
+    private final LongAdder appliedSinceCheckpoint = new LongAdder();
+
+    public LiveFleetCheckpoint(LiveFleetStore liveFleetStore, FleetAggregator fleetAggregator,
+            FleetSpatialIndex spatialIndex,
+            @Value("${fleetsync.snapshot.enabled:true}") boolean enabled,
+            @Value("${fleetsync.snapshot.path:data/live-fleet.snapshot}") String path) {
+        this.liveFleetStore = liveFleetStore;
+        this.fleetAggregator = fleetAggregator;
+        this.spatialIndex = spatialIndex;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+    }
+
+    /**
+     * Called by the consumer after a record has been applied to the live store.
+     */
+    public void applied(int partition, long offset) {
+        appliedOffsets.merge(partition, offset + 1, Math::max);
+        appliedSinceCheckpoint.increment();
+    }
+
+    /**
+     * @return where to resume the partition from, or null if the checkpoint doesn't cover it
+     */
+    public Long restoredOffset(int partition) {
+        return restoredOffsets.remove(partition);
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignoring live fleet checkpoint {}: unknown format", path);
+                return;
+            }
+            long createdAt = buffer.getLong();
+
+            Map<Integer, Long> offsets = new HashMap<>();
+            int partitions = buffer.getInt();
+            for (int i = 0; i < partitions; i++) {
+                offsets.put(buffer.getInt(), buffer.getLong());
+            }
+
+            int trucks = buffer.getInt();
+            for (int i = 0; i < trucks; i++) {
+                byte[] id = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(id);
+                TruckTelemetry telemetry = new TruckTelemetry(new String(id, StandardCharsets.UTF_8),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getLong());
+                TruckTelemetry previous = liveFleetStore.update(telemetry);
+                fleetAggregator.update(previous, telemetry);
+                spatialIndex.update(telemetry.getTruckId(), telemetry.getLatitude(), telemetry.getLongitude());
+            }
+
+            restoredOffsets.putAll(offsets);
+            appliedOffsets.putAll(offsets);
+            log.info("Restored {} trucks from checkpoint taken at {} in {} ms; resuming from offsets {}",
+                    trucks, Instant.ofEpochMilli(createdAt), (System.nanoTime() - start) / 1_000_000,
+                    offsets);
+        } catch (IOException | BufferUnderflowException e) {
+            log.warn("Could not restore live fleet checkpoint {}; rebuilding from Kafka", path, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fleetsync.snapshot.interval-ms:30000}")
+    public void checkpoint() {
+        if (!enabled || appliedSinceCheckpoint.sumThenReset() == 0) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException e) {
+            log.error("Failed to write live fleet checkpoint {}", path, e);
+        }
+    }
+
+    private void write() throws IOException {
+        long start = System.nanoTime();
+        // Offsets first: everything after them is either in the copied state or will be replayed
+        Map<Integer, Long> offsets = new HashMap<>(appliedOffsets);
+
+        long[] truckBytes = new long[1];
+        liveFleetStore.forEach((truckId, latitude, longitude, speed, engineTemp, fuelLevel, timestamp) ->
+                truckBytes[0] += TRUCK_FIXED_BYTES + truckId.getBytes(StandardCharsets.UTF_8).length);
+        long capacity = 4 + 4 + 8 + 4 + offsets.size() * 12L + 4 + truckBytes[0];
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        int[] written = new int[1];
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+            buffer.putInt(offsets.size());
+            offsets.forEach((partition, offset) -> buffer.putInt(partition).putLong(offset));
+
+            int countPosition = buffer.position();
+            buffer.putInt(0);
+            liveFleetStore.forEach((truckId, latitude, longitude, speed, engineTemp, fuelLevel, timestamp) -> {
+                byte[] id = truckId.getBytes(StandardCharsets.UTF_8);
+                // Trucks first seen after the sizing pass are left to the Kafka replay
+                if (buffer.remaining() < TRUCK_FIXED_BYTES + id.length) {
+                    return;
+                }
+                buffer.putShort((short) id.length).put(id);
+                buffer.putDouble(latitude).putDouble(longitude).putDouble(speed).putDouble(engineTemp)
+                        .putDouble(fuelLevel).putLong(timestamp);
+                written[0]++;
+            });
+            buffer.putInt(countPosition, written[0]);
+            buffer.force();
+        }
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Checkpointed {} trucks to {} in {} ms", written[0], path, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,201 @@
+package com.fleetsync.state;
+
+import com.fleetsync.model.TruckTelemetry;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latest reading of every truck, stored column-wise in chunked primitive
+ * arrays behind per-slot seqlocks.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class LiveFleetStore {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1024; // ~16.7M trucks
+
+    private static final class Chunk {
+        final String[] truckIds = new String[CHUNK_SIZE];
+        final double[] latitude = new double[CHUNK_SIZE];
+        final double[] longitude = new double[CHUNK_SIZE];
+        final double[] speed = new double[CHUNK_SIZE];
+        final double[] engineTemp = new double[CHUNK_SIZE];
+        final double[] fuelLevel = new double[CHUNK_SIZE];
+        final long[] timestamp = new long[CHUNK_SIZE];
+        // Seqlock: odd while a write is in progress, +2 per write; 0 = slot reserved but never written
+        final AtomicLongArray version = new AtomicLongArray(CHUNK_SIZE);
+    }
+
+    private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    /**
+     * Stores the reading and returns the truck's previous one, or null if the
+     * truck is new. Both happen under the slot's write lock, so callers that
+     * keep running aggregates see every reading replaced exactly once.
+     *
+     * Telemetry reaches Kafka at least once and not necessarily in order
+     * (spool replays), so a reading older than the stored one is ignored;
+     * {@code telemetry} itself is returned to signal that.
+     */
+    public TruckTelemetry update(TruckTelemetry telemetry) {
+        int slot = slots.computeIfAbsent(telemetry.getTruckId(), this::allocate);
+        Chunk chunk = chunks.get(slot >>> CHUNK_BITS);
+        int i = slot & CHUNK_MASK;
+
+        long v;
+        do {
+            v = chunk.version.get(i);
+            if ((v & 1) != 0) {
+                Thread.onSpinWait();
+            }
+        } while ((v & 1) != 0 || !chunk.version.compareAndSet(i, v, v + 1));
+
+        if (v != 0 && telemetry.getTimestamp() < chunk.timestamp[i]) {
+            chunk.version.set(i, v);
+            return telemetry;
+        }
+        TruckTelemetry previous = v == 0 ? null : read(chunk, i);
+        chunk.latitude[i] = telemetry.getLatitude();
+        chunk.longitude[i] = telemetry.getLongitude();
+        chunk.speed[i] = telemetry.getSpeed();
+        chunk.engineTemp[i] = telemetry.getEngineTemp();
+        chunk.fuelLevel[i] = telemetry.getFuelLevel();
+        chunk.timestamp[i] = telemetry.getTimestamp();
+        chunk.version.set(i, v + 2);
+        return previous;
+    }
+
+    /**
+     * @return a copy of the truck's latest reading, or null if it has not reported
+     */
+    public TruckTelemetry get(String truckId) {
+        Integer slot = slots.get(truckId);
+        return slot != null ? readSlot(slot) : null;
+    }
+
+    /**
+     * Copies every truck's latest reading into a new map. Each entry is
+     * consistent on its own; the map as a whole is not a point-in-time view.
+     */
+    public Map<String, TruckTelemetry> snapshot() {
+        int count = nextSlot.get();
+        Map<String, TruckTelemetry> result = new HashMap<>((int) (count / 0.75f) + 1);
+        for (int slot = 0; slot < count; slot++) {
+            TruckTelemetry telemetry = readSlot(slot);
+            if (telemetry != null) {
+                result.put(telemetry.getTruckId(), telemetry);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Receives one truck's reading as primitives, so bulk readers such as
+     * checkpoints don't allocate per truck.
+     */
+    @FunctionalInterface
+    public interface SlotVisitor {
+        void visit(String truckId, double latitude, double longitude, double speed, double engineTemp,
+                double fuelLevel, long timestamp);
+    }
+
+    /**
+     * Visits every truck that has reported, each with a consistent reading.
+     */
+    public void forEach(SlotVisitor visitor) {
+        int count = nextSlot.get();
+        for (int slot = 0; slot < count; slot++) {
+            Chunk chunk = chunks.get(slot >>> CHUNK_BITS);
+            if (chunk == null) {
+                continue;
+            }
+            int i = slot & CHUNK_MASK;
+
+            while (true) {
+                long before = chunk.version.get(i);
+                if (before == 0) {
+                    break;
+                }
+                if ((before & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                double latitude = chunk.latitude[i];
+                double longitude = chunk.longitude[i];
+                double speed = chunk.speed[i];
+                double engineTemp = chunk.engineTemp[i];
+                double fuelLevel = chunk.fuelLevel[i];
+                long timestamp = chunk.timestamp[i];
+                VarHandle.acquireFence();
+                if (chunk.version.get(i) == before) {
+                    visitor.visit(chunk.truckIds[i], latitude, longitude, speed, engineTemp, fuelLevel, timestamp);
+                    break;
+                }
+            }
+        }
+    }
+
+    private TruckTelemetry readSlot(int slot) {
+        Chunk chunk = chunks.get(slot >>> CHUNK_BITS);
+        if (chunk == null) {
+            return null;
+        }
+        int i = slot & CHUNK_MASK;
+
+        while (true) {
+            long before = chunk.version.get(i);
+            if (before == 0) {
+                return null;
+            }
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            TruckTelemetry telemetry = read(chunk, i);
+            // Keep the field reads above from being reordered past the validation
+            VarHandle.acquireFence();
+            if (chunk.version.get(i) == before) {
+                return telemetry;
+            }
+        }
+    }
+
+    private static TruckTelemetry read(Chunk chunk, int i) {
+        return new TruckTelemetry(chunk.truckIds[i], chunk.latitude[i], chunk.longitude[i], chunk.speed[i],
+                chunk.engineTemp[i], chunk.fuelLevel[i], chunk.timestamp[i]);
+    }
+
+    // Runs inside computeIfAbsent, so each id gets exactly one slot
+    private Integer allocate(String truckId) {
+        int slot = nextSlot.getAndIncrement();
+        int chunkIndex = slot >>> CHUNK_BITS;
+        if (chunkIndex >= MAX_CHUNKS) {
+            nextSlot.decrementAndGet();
+            throw new IllegalStateException("Live fleet store is full (" + MAX_CHUNKS * CHUNK_SIZE + " trucks)");
+        }
+        Chunk chunk = chunks.get(chunkIndex);
+        if (chunk == null) {
+            chunks.compareAndSet(chunkIndex, null, new Chunk());
+            chunk = chunks.get(chunkIndex);
+        }
+        chunk.truckIds[slot & CHUNK_MASK] = truckId;
+        return slot;
+    }
+}
@@ -0,0 +1,61 @@
+package com.fleetsync.stats;
+
+import com.fleetsync.model.TruckTelemetry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fleet-wide statistics maintained on the ingest path by swapping each
+ * truck's previous reading for its new one.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class FleetAggregator {
+
+    private final LongAdder activeTrucks = new LongAdder();
+    private final MetricHistogram speed = new MetricHistogram(0, 200, 0.1); // mph
+    private final MetricHistogram engineTemp = new MetricHistogram(-40, 160, 0.1); // Celsius
+    private final MetricHistogram fuelLevel = new MetricHistogram(0, 100, 0.1); // percentage
+
+    public record Snapshot(long activeTrucks, MetricHistogram.Summary speed,
+            MetricHistogram.Summary engineTemp, MetricHistogram.Summary fuelLevel) {
+    }
+
+    /**
+     * @param previous the truck's last reading, or null the first time it is seen
+     */
+    public void update(TruckTelemetry previous, TruckTelemetry current) {
+        if (previous == null) {
+            activeTrucks.increment();
+        } else {
+            speed.remove(previous.getSpeed());
+            engineTemp.remove(previous.getEngineTemp());
+            fuelLevel.remove(previous.getFuelLevel());
+        }
+        speed.add(current.getSpeed());
+        engineTemp.add(current.getEngineTemp());
+        fuelLevel.add(current.getFuelLevel());
+    }
+
+    public long getActiveTrucks() {
+        return activeTrucks.sum();
+    }
+
+    public double getAverageSpeed() {
+        return speed.average();
+    }
+
+    public double getAverageEngineTemp() {
+        return engineTemp.average();
+    }
+
+    public double getAverageFuelLevel() {
+        return fuelLevel.average();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(activeTrucks.sum(), speed.summary(), engineTemp.summary(), fuelLevel.summary());
+    }
+}
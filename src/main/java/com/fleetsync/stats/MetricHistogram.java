@@ -0,0 +1,185 @@
+package com.fleetsync.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bin histogram of one metric across the fleet, with removable values
+ * and exact min/max. Values outside [min, max) land in the edge bins.
+ *
+ * @author Shivam Srivastav
+ */
+public class MetricHistogram {
+
+    private final double min;
+    private final double binWidth;
+    private final AtomicLongArray bins;
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder count = new LongAdder();
+    // Double bits of the exact extremes; UNKNOWN once the extreme itself was removed
+    private final AtomicLong lowest = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+    private final AtomicLong highest = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+
+    private static final long UNKNOWN = Double.doubleToLongBits(Double.NaN);
+
+    public record Summary(long count, double average, double min, double max, double p50, double p95, double p99) {
+    }
+
+    public MetricHistogram(double min, double max, double binWidth) {
+        this.min = min;
+        this.binWidth = binWidth;
+        this.bins = new AtomicLongArray((int) Math.ceil((max - min) / binWidth));
+    }
+
+    public void add(double value) {
+        bins.incrementAndGet(binOf(value));
+        sum.add(value);
+        count.increment();
+        extend(lowest, value, -1);
+        extend(highest, value, 1);
+    }
+
+    public void remove(double value) {
+        bins.decrementAndGet(binOf(value));
+        sum.add(-value);
+        count.decrement();
+        forget(lowest, value);
+        forget(highest, value);
+    }
+
+    public void merge(MetricHistogram other) {
+        if (other.bins.length() != bins.length() || other.min != min || other.binWidth != binWidth) {
+            throw new IllegalArgumentException("Histogram layouts differ");
+        }
+        for (int i = 0; i < bins.length(); i++) {
+            long n = other.bins.get(i);
+            if (n != 0) {
+                bins.addAndGet(i, n);
+            }
+        }
+        sum.add(other.sum.sum());
+        count.add(other.count.sum());
+        mergeExtreme(lowest, other.lowest.get(), -1);
+        mergeExtreme(highest, other.highest.get(), 1);
+    }
+
+    public double average() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : sum.sum() / n;
+    }
+
+    /**
+     * Two passes over every bin, so O(bins) per call whether or not they are
+     * occupied; independent of fleet size.
+     */
+    public Summary summary() {
+        long total = 0;
+        for (int i = 0; i < bins.length(); i++) {
+            total += bins.get(i);
+        }
+        if (total <= 0) {
+            return new Summary(0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+
+        long rank50 = rank(total, 0.50);
+        long rank95 = rank(total, 0.95);
+        long rank99 = rank(total, 0.99);
+        double low = 0.0;
+        double high = 0.0;
+        double p50 = Double.NaN;
+        double p95 = Double.NaN;
+        double p99 = Double.NaN;
+
+        int lowestBin = -1;
+        int highestBin = -1;
+        long seen = 0;
+        for (int i = 0; i < bins.length(); i++) {
+            long n = bins.get(i);
+            if (n <= 0) {
+                continue;
+            }
+            if (lowestBin < 0) {
+                lowestBin = i;
+            }
+            highestBin = i;
+            seen += n;
+            if (Double.isNaN(p50) && seen >= rank50) {
+                p50 = midpoint(i);
+            }
+            if (Double.isNaN(p95) && seen >= rank95) {
+                p95 = midpoint(i);
+            }
+            if (Double.isNaN(p99) && seen >= rank99) {
+                p99 = midpoint(i);
+            }
+        }
+        if (lowestBin >= 0) {
+            low = extreme(lowest, lowestBin, lowerEdge(lowestBin));
+            high = extreme(highest, highestBin, lowerEdge(highestBin) + binWidth);
+        }
+        return new Summary(total, average(), low, high, p50, p95, p99);
+    }
+
+    /**
+     * The exact extreme if it is known and lies in the occupied edge bin,
+     * otherwise that bin's outer edge. An unknown extreme is reseeded with the
+     * edge, so a later value beyond it is exact again.
+     */
+    private double extreme(AtomicLong extreme, int bin, double edge) {
+        long bits = extreme.get();
+        if (bits == UNKNOWN) {
+            extreme.compareAndSet(UNKNOWN, Double.doubleToLongBits(edge));
+            return edge;
+        }
+        double value = Double.longBitsToDouble(bits);
+        // Infinite until the first add() has published its value
+        return !Double.isInfinite(value) && binOf(value) == bin ? value : edge;
+    }
+
+    // direction -1 keeps the smaller value, 1 the larger
+    private static void extend(AtomicLong extreme, double value, int direction) {
+        while (true) {
+            long bits = extreme.get();
+            if (bits == UNKNOWN || Double.compare(value, Double.longBitsToDouble(bits)) * direction <= 0) {
+                return;
+            }
+            if (extreme.compareAndSet(bits, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+
+    private static void forget(AtomicLong extreme, double value) {
+        long bits = extreme.get();
+        if (bits != UNKNOWN && Double.longBitsToDouble(bits) == value) {
+            extreme.compareAndSet(bits, UNKNOWN);
+        }
+    }
+
+    private static void mergeExtreme(AtomicLong extreme, long otherBits, int direction) {
+        if (otherBits == UNKNOWN) {
+            extreme.set(UNKNOWN);
+        } else {
+            extend(extreme, Double.longBitsToDouble(otherBits), direction);
+        }
+    }
+
+    private static long rank(long total, double quantile) {
+        return Math.max(1, (long) Math.ceil(total * quantile));
+    }
+
+    private int binOf(double value) {
+        int bin = (int) Math.floor((value - min) / binWidth);
+        return Math.max(0, Math.min(bins.length() - 1, bin));
+    }
+
+    private double lowerEdge(int bin) {
+        return min + bin * binWidth;
+    }
+
+    private double midpoint(int bin) {
+        return lowerEdge(bin) + binWidth / 2;
+    }
+}
@@ -0,0 +1,182 @@
+package com.fleetsync.stats;
+
+import com.fleetsync.model.TruckTelemetry;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sliding and tumbling windows for one truck, built from fixed-size panes
+ * held in bounded rings.
+ *
+ * @author Shivam Srivastav
+ */
+public final class TruckWindows {
+
+    public enum Admission {
+        ADDED,
+        // Its pane had already closed
+        LATE,
+        // Beyond what the rings can hold until the watermark catches up
+        AHEAD
+    }
+
+    /**
+     * Window definition shared by every truck. The tumbling length is a
+     * whole number of panes, so a pane never straddles two tumbling windows.
+     */
+    public record Spec(long paneMillis, int slidingPanes, long tumblingMillis, long allowedLatenessMillis,
+            int history) {
+
+        public Spec {
+            if (paneMillis <= 0 || slidingPanes <= 0 || tumblingMillis < paneMillis || tumblingMillis % paneMillis != 0) {
+                throw new IllegalArgumentException("Windows must be positive whole multiples of the pane size");
+            }
+        }
+
+        public String slidingLabel() {
+            return "sliding-" + duration(paneMillis * slidingPanes);
+        }
+
+        public String tumblingLabel() {
+            return "tumbling-" + duration(tumblingMillis);
+        }
+
+        private static String duration(long millis) {
+            return millis % 60_000 == 0 ? millis / 60_000 + "m" : millis / 1000 + "s";
+        }
+    }
+
+    private final String truckId;
+    private final Spec spec;
+    private final String slidingLabel;
+    private final String tumblingLabel;
+    private final WindowAccumulator[] panes;
+    private final WindowAccumulator[] tumbling;
+    private final WindowAccumulator scratch = new WindowAccumulator();
+    private final ArrayDeque<WindowResult> tumblingHistory;
+
+    // End of the last closed pane; readings before it are late
+    private long closedUpTo;
+    private long lastPaneWithData = WindowAccumulator.EMPTY;
+    private long lastEventTime;
+    private WindowResult latestSliding;
+
+    public TruckWindows(String truckId, Spec spec, long watermark) {
+        this.truckId = truckId;
+        this.spec = spec;
+        this.slidingLabel = spec.slidingLabel();
+        this.tumblingLabel = spec.tumblingLabel();
+        int latePanes = (int) ((spec.allowedLatenessMillis() + spec.paneMillis() - 1) / spec.paneMillis());
+        this.panes = ring(spec.slidingPanes() + latePanes + 2);
+        int lateWindows = (int) ((spec.allowedLatenessMillis() + spec.tumblingMillis() - 1) / spec.tumblingMillis());
+        this.tumbling = ring(lateWindows + 2);
+        this.tumblingHistory = new ArrayDeque<>(spec.history());
+        this.closedUpTo = Math.floorDiv(watermark, spec.paneMillis()) * spec.paneMillis();
+    }
+
+    public synchronized Admission add(TruckTelemetry telemetry) {
+        long timestamp = telemetry.getTimestamp();
+        long paneStart = Math.floorDiv(timestamp, spec.paneMillis()) * spec.paneMillis();
+        long windowStart = Math.floorDiv(timestamp, spec.tumblingMillis()) * spec.tumblingMillis();
+        if (paneStart < closedUpTo) {
+            return Admission.LATE;
+        }
+        // The oldest pane a pending sliding window still needs, and the oldest open tumbling window,
+        // must not share a slot with the new one
+        long oldestPane = closedUpTo - (spec.slidingPanes() - 1) * spec.paneMillis();
+        long oldestWindow = Math.floorDiv(closedUpTo, spec.tumblingMillis()) * spec.tumblingMillis();
+        if (paneStart >= oldestPane + panes.length * spec.paneMillis()
+                || windowStart >= oldestWindow + tumbling.length * spec.tumblingMillis()) {
+            return Admission.AHEAD;
+        }
+        slot(panes, paneStart, spec.paneMillis()).add(telemetry);
+        slot(tumbling, windowStart, spec.tumblingMillis()).add(telemetry);
+        lastPaneWithData = Math.max(lastPaneWithData, paneStart);
+        lastEventTime = Math.max(lastEventTime, timestamp);
+        return Admission.ADDED;
+    }
+
+    /**
+     * Closes every pane and tumbling window that ends at or before the
+     * watermark, passing the resulting windows to {@code out}.
+     */
+    public synchronized void advance(long watermark, Consumer<WindowResult> out) {
+        long pane = spec.paneMillis();
+        long target = Math.floorDiv(watermark, pane) * pane;
+        long slidingMillis = pane * spec.slidingPanes();
+
+        while (closedUpTo < target) {
+            // Every later sliding window would be empty; skip straight to the watermark
+            if (lastPaneWithData == WindowAccumulator.EMPTY || closedUpTo >= lastPaneWithData + slidingMillis) {
+                closedUpTo = target;
+                break;
+            }
+            long end = closedUpTo + pane;
+            scratch.reset(end - slidingMillis);
+            for (WindowAccumulator accumulator : panes) {
+                if (accumulator.start != WindowAccumulator.EMPTY && accumulator.start >= end - slidingMillis
+                        && accumulator.start < end) {
+                    scratch.merge(accumulator);
+                }
+            }
+            if (scratch.count > 0) {
+                latestSliding = scratch.toResult(truckId, slidingLabel, end - slidingMillis, end);
+                out.accept(latestSliding);
+            }
+            closedUpTo = end;
+        }
+
+        for (WindowAccumulator window : tumbling) {
+            if (window.start != WindowAccumulator.EMPTY && window.start + spec.tumblingMillis() <= closedUpTo) {
+                if (window.count > 0) {
+                    WindowResult result = window.toResult(truckId, tumblingLabel, window.start,
+                            window.start + spec.tumblingMillis());
+                    if (tumblingHistory.size() == spec.history()) {
+                        tumblingHistory.removeLast();
+                    }
+                    tumblingHistory.addFirst(result);
+                    out.accept(result);
+                }
+                window.start = WindowAccumulator.EMPTY;
+            }
+        }
+    }
+
+    /**
+     * True once every window holding data has closed and the truck has been
+     * silent for {@code retentionMillis} of event time.
+     */
+    public synchronized boolean isIdle(long watermark, long retentionMillis) {
+        return closedUpTo > lastPaneWithData + spec.tumblingMillis() && lastEventTime < watermark - retentionMillis;
+    }
+
+    public synchronized WindowResult getLatestSliding() {
+        return latestSliding;
+    }
+
+    /**
+     * Closed tumbling windows, newest first.
+     */
+    public synchronized List<WindowResult> getTumblingHistory() {
+        return List.copyOf(tumblingHistory);
+    }
+
+    private static WindowAccumulator slot(WindowAccumulator[] ring, long start, long length) {
+        WindowAccumulator accumulator = ring[(int) Math.floorMod(start / length, (long) ring.length)];
+        // add() only admits spans far enough ahead that the slot's previous span has closed
+        if (accumulator.start != start) {
+            accumulator.reset(start);
+        }
+        return accumulator;
+    }
+
+    private static WindowAccumulator[] ring(int size) {
+        WindowAccumulator[] ring = new WindowAccumulator[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new WindowAccumulator();
+        }
+        return ring;
+    }
+}
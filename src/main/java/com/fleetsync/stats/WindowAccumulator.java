@@ -0,0 +1,105 @@
+package com.fleetsync.stats;
+
+import com.fleetsync.model.TruckTelemetry;
+
+/**
+ * Running count/min/max/sum of one truck's readings over a span of event
+ * time. Accumulators merge, so sliding windows are built from panes.
+ *
+ * @author Shivam Srivastav
+ */
+public final class WindowAccumulator {
+
+    static final long EMPTY = Long.MIN_VALUE;
+
+    long start = EMPTY;
+    long count;
+    double speedSum;
+    double speedMin;
+    double speedMax;
+    double engineTempSum;
+    double engineTempMin;
+    double engineTempMax;
+    long firstTimestamp;
+    double firstFuel;
+    long lastTimestamp;
+    double lastFuel;
+
+    void reset(long start) {
+        this.start = start;
+        count = 0;
+    }
+
+    void add(TruckTelemetry telemetry) {
+        long timestamp = telemetry.getTimestamp();
+        double speed = telemetry.getSpeed();
+        double engineTemp = telemetry.getEngineTemp();
+        if (count == 0) {
+            speedMin = speedMax = speed;
+            engineTempMin = engineTempMax = engineTemp;
+            speedSum = engineTempSum = 0;
+            firstTimestamp = lastTimestamp = timestamp;
+            firstFuel = lastFuel = telemetry.getFuelLevel();
+        } else {
+            speedMin = Math.min(speedMin, speed);
+            speedMax = Math.max(speedMax, speed);
+            engineTempMin = Math.min(engineTempMin, engineTemp);
+            engineTempMax = Math.max(engineTempMax, engineTemp);
+            if (timestamp < firstTimestamp) {
+                firstTimestamp = timestamp;
+                firstFuel = telemetry.getFuelLevel();
+            }
+            if (timestamp >= lastTimestamp) {
+                lastTimestamp = timestamp;
+                lastFuel = telemetry.getFuelLevel();
+            }
+        }
+        speedSum += speed;
+        engineTempSum += engineTemp;
+        count++;
+    }
+
+    void merge(WindowAccumulator other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            speedMin = other.speedMin;
+            speedMax = other.speedMax;
+            engineTempMin = other.engineTempMin;
+            engineTempMax = other.engineTempMax;
+            speedSum = engineTempSum = 0;
+            firstTimestamp = other.firstTimestamp;
+            firstFuel = other.firstFuel;
+            lastTimestamp = other.lastTimestamp;
+            lastFuel = other.lastFuel;
+        } else {
+            speedMin = Math.min(speedMin, other.speedMin);
+            speedMax = Math.max(speedMax, other.speedMax);
+            engineTempMin = Math.min(engineTempMin, other.engineTempMin);
+            engineTempMax = Math.max(engineTempMax, other.engineTempMax);
+            if (other.firstTimestamp < firstTimestamp) {
+                firstTimestamp = other.firstTimestamp;
+                firstFuel = other.firstFuel;
+            }
+            if (other.lastTimestamp >= lastTimestamp) {
+                lastTimestamp = other.lastTimestamp;
+                lastFuel = other.lastFuel;
+            }
+        }
+        speedSum += other.speedSum;
+        engineTempSum += other.engineTempSum;
+        count += other.count;
+    }
+
+    WindowResult toResult(String truckId, String window, long windowStart, long windowEnd) {
+        return new WindowResult(truckId, window, windowStart, windowEnd, count,
+                round(speedSum / count), round(speedMin), round(speedMax),
+                round(engineTempSum / count), round(engineTempMin), round(engineTempMax),
+                round(Math.max(0, firstFuel - lastFuel)));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.fleetsync.stats;
+
+/**
+ * One closed window for one truck over {@code [windowStart, windowEnd)} in
+ * event time, e.g. {@code "sliding-5m"}.
+ *
+ * @author Shivam Srivastav
+ */
+public record WindowResult(String truckId, String window, long windowStart, long windowEnd, long count,
+        double avgSpeed, double minSpeed, double maxSpeed,
+        double avgEngineTemp, double minEngineTemp, double maxEngineTemp,
+        double fuelUsed) {
+}
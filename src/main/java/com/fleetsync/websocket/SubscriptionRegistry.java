@@ -0,0 +1,112 @@
+package com.fleetsync.websocket;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts live STOMP subscriptions per destination, including pattern
+ * subscriptions, so publishers can skip unwatched destinations.
+ *
+ * @author Shivam Srivastav
+ */
+@Component
+public class SubscriptionRegistry {
+
+    // sessionId -> (subscriptionId -> destination)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Integer> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, Integer> patterns = new ConcurrentHashMap<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        String destination = accessor.getDestination();
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        countsFor(destination).merge(destination, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (destination != null) {
+                decrement(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    public boolean hasSubscribers(String destination) {
+        if (subscribers.containsKey(destination)) {
+            return true;
+        }
+        for (String pattern : patterns.keySet()) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if any destination starting with {@code prefix} may have a
+     * subscriber. A pattern counts if it can match somewhere under the prefix;
+     * {@link #hasSubscribers} then decides per destination.
+     */
+    public boolean hasSubscribersUnder(String prefix) {
+        for (String destination : subscribers.keySet()) {
+            if (destination.startsWith(prefix)) {
+                return true;
+            }
+        }
+        String parent = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        for (String pattern : patterns.keySet()) {
+            if (pathMatcher.matchStart(pattern, parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Map<String, Integer> getSubscriberCounts() {
+        Map<String, Integer> counts = new HashMap<>(subscribers);
+        counts.putAll(patterns);
+        return Map.copyOf(counts);
+    }
+
+    private void decrement(String destination) {
+        countsFor(destination).computeIfPresent(destination, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Map<String, Integer> countsFor(String destination) {
+        return pathMatcher.isPattern(destination) ? patterns : subscribers;
+    }
+}
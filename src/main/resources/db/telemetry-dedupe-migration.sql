@@ -0,0 +1,17 @@
+-- Removes duplicate readings (same truck and timestamp) and adds the unique
+-- constraint the database sink's ON CONFLICT clause relies on. Run once
+-- against databases created before the constraint existed, with the
+-- application stopped (ddl-auto=update cannot add it while duplicates remain).
+
+BEGIN;
+
+DELETE FROM truck_telemetry a
+USING truck_telemetry b
+WHERE a.truck_key = b.truck_key
+  AND a.timestamp = b.timestamp
+  AND a.id > b.id;
+
+ALTER TABLE truck_telemetry
+    ADD CONSTRAINT uk_truck_telemetry_reading UNIQUE (truck_key, timestamp);
+
+COMMIT;
@@ -0,0 +1,35 @@
+-- Moves truck ids out of truck_telemetry into the truck dimension table.
+-- Run once against databases created before truck_key existed, with the
+-- application stopped (ddl-auto=update cannot drop or backfill columns).
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS truck (
+    truck_key SERIAL PRIMARY KEY,
+    truck_id  VARCHAR(50) NOT NULL,
+    CONSTRAINT uk_truck_truck_id UNIQUE (truck_id)
+);
+
+INSERT INTO truck (truck_id)
+SELECT DISTINCT truck_id FROM truck_telemetry
+ON CONFLICT (truck_id) DO NOTHING;
+
+ALTER TABLE truck_telemetry ADD COLUMN IF NOT EXISTS truck_key INTEGER;
+
+UPDATE truck_telemetry tt
+SET truck_key = t.truck_key
+FROM truck t
+WHERE t.truck_id = tt.truck_id;
+
+ALTER TABLE truck_telemetry ALTER COLUMN truck_key SET NOT NULL;
+
+DROP INDEX IF EXISTS idx_truck_id_timestamp;
+DROP INDEX IF EXISTS idx_truck_id;
+ALTER TABLE truck_telemetry DROP COLUMN truck_id;
+
+CREATE INDEX IF NOT EXISTS idx_truck_key_timestamp ON truck_telemetry (truck_key, timestamp, id);
+
+COMMIT;
+
+-- Rewrite the table so the space freed by the dropped column is returned
+VACUUM FULL truck_telemetry;
@@ -42,26 +42,23 @@ const speedChart = new Chart(ctx, {
 stompClient.connect({}, function (frame) {
     console.log('Connected: ' + frame);
 
-    // Subscribe to Telemetry
+    // Subscribe to Telemetry (each frame holds every truck that changed since the last one)
     stompClient.subscribe('/topic/telemetry', function (message) {
-        const telemetry = JSON.parse(message.body);
-        updateTruckTable(telemetry);
-        updateChart(telemetry);
+        const frame = JSON.parse(message.body);
+        frame.forEach(telemetry => {
+            truckDataMap.set(telemetry.truckId, telemetry);
+            updateMapMarker(telemetry);
+        });
+        renderTable();
+        updateChart();
     });
 
     // Subscribe to Alerts
     stompClient.subscribe('/topic/alerts', function (message) {
-        const alert = JSON.parse(message.body);
-        showAlert(alert);
+        showAlert(message.body);
     });
 });
 
-function updateTruckTable(data) {
-    truckDataMap.set(data.truckId, data);
-    renderTable();
-    updateMapMarker(data);
-}
-
 function updateMapMarker(data) {
     if (truckMarkers.has(data.truckId)) {
         // Update existing marker
@@ -106,7 +103,7 @@ function renderTable() {
     });
 }
 
-function updateChart(data) {
+function updateChart() {
     // Simple logic: Add data point for the current update (not perfect avg but shows activity)
     // In a real app, we'd aggregate this on the backend or maintain a rolling average here.
 
@@ -133,13 +130,19 @@ function updateChart(data) {
     speedChart.update('none'); // 'none' mode for performance
 }
 
-function showAlert(alert) {
+// Alerts arrive as plain text: "TRUCK-001: SPEEDING, LOW FUEL"
+function showAlert(alertText) {
+    const separator = alertText.indexOf(': ');
+    const truckId = separator < 0 ? '' : alertText.substring(0, separator);
+    const types = separator < 0 ? alertText : alertText.substring(separator + 2);
+    const primaryType = types.split(', ')[0].split(' (')[0].replace(/ /g, '_');
+
     const li = document.createElement('li');
-    li.className = `alert-item ${alert.type}`;
+    li.className = `alert-item ${primaryType}`;
     li.innerHTML = `
-        <strong>${alert.type}</strong><br>
-        ${alert.message}
-        <div style="font-size: 0.7rem; opacity: 0.7; margin-top: 4px;">${new Date(alert.timestamp).toLocaleTimeString()}</div>
+        <strong>${types}</strong><br>
+        ${truckId}
+        <div style="font-size: 0.7rem; opacity: 0.7; margin-top: 4px;">${new Date().toLocaleTimeString()}</div>
     `;
     alertsList.prepend(li);
 
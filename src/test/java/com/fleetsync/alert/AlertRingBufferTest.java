@@ -0,0 +1,107 @@
+package com.fleetsync.alert;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AlertRingBufferTest {
+
+    @Test
+    void keepsOnlyTheNewestEntriesOnceItWraps() {
+        AlertRingBuffer<Integer> ring = new AlertRingBuffer<>(4);
+        for (int i = 0; i < 10; i++) {
+            ring.add(i);
+        }
+
+        assertThat(ring.snapshot()).containsExactly(9, 8, 7, 6);
+        assertThat(ring.snapshot(2)).containsExactly(9, 8);
+        assertThat(ring.snapshot(100)).hasSize(4);
+        assertThat(ring.snapshot(-1)).isEmpty();
+        assertThat(ring.totalAdded()).isEqualTo(10);
+    }
+
+    @Test
+    void returnsWhatItHasBeforeTheFirstWrap() {
+        AlertRingBuffer<Integer> ring = new AlertRingBuffer<>(4);
+        assertThat(ring.snapshot()).isEmpty();
+
+        ring.add(1);
+        ring.add(2);
+
+        assertThat(ring.snapshot()).containsExactly(2, 1);
+    }
+
+    @Test
+    void skipsSlotsClaimedButNotYetWritten() throws Exception {
+        AlertRingBuffer<Integer> ring = new AlertRingBuffer<>(4);
+        for (int i = 0; i < 6; i++) {
+            ring.add(i);
+        }
+        // A writer that has claimed sequence 6 but not yet published; its slot still holds sequence 2
+        claimSequence(ring);
+
+        assertThat(ring.snapshot()).containsExactly(5, 4, 3);
+
+        ring.add(7);
+        assertThat(ring.snapshot()).containsExactly(7, 5, 4);
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThatThrownBy(() -> new AlertRingBuffer<>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentWritersAndReadersSeeOnlyWholeDistinctEntries() throws InterruptedException {
+        int writers = 4;
+        int perWriter = 50_000;
+        AlertRingBuffer<long[]> ring = new AlertRingBuffer<>(64);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        Thread[] threads = new Thread[writers + 1];
+        for (int w = 0; w < writers; w++) {
+            long writer = w;
+            threads[w] = new Thread(() -> {
+                for (long n = 0; n < perWriter; n++) {
+                    ring.add(new long[] { writer, n });
+                }
+            });
+        }
+        threads[writers] = new Thread(() -> {
+            while (ring.totalAdded() < (long) writers * perWriter) {
+                List<long[]> snapshot = ring.snapshot();
+                if (snapshot.size() > ring.capacity() || snapshot.size() != Set.copyOf(snapshot).size()) {
+                    failure.compareAndSet(null, "Snapshot of " + snapshot.size() + " entries");
+                }
+            }
+        });
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failure.get()).isNull();
+        List<long[]> last = ring.snapshot();
+        Set<String> distinct = new HashSet<>();
+        for (long[] entry : last) {
+            distinct.add(entry[0] + ":" + entry[1]);
+        }
+        assertThat(distinct).hasSize(ring.capacity());
+    }
+
+    private static void claimSequence(AlertRingBuffer<?> ring) throws Exception {
+        Field field = AlertRingBuffer.class.getDeclaredField("nextSequence");
+        field.setAccessible(true);
+        ((AtomicLong) field.get(ring)).getAndIncrement();
+    }
+}
@@ -0,0 +1,99 @@
+package com.fleetsync.alert;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.model.TruckTelemetry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AlertRuleEngineTest {
+
+    private static final long SPEEDING = 1L;
+    private static final long OVERHEATING = 1L << 1;
+    private static final long LOW_FUEL = 1L << 2;
+
+    // The shipped rules: SPEEDING above 80 (clear 75, debounce 2), OVERHEATING above 100 (clear 97), LOW FUEL below 10 (clear 12)
+    private final AlertRuleEngine engine = new AlertRuleEngine(new ObjectMapper(),
+            new ClassPathResource("alert-rules.json"));
+
+    @Test
+    void raisesOnlyAfterTheDebounceStreak() {
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isZero();
+        assertThat(engine.evaluate(reading("TRUCK-001", 86, 90, 50))).isEqualTo(SPEEDING);
+    }
+
+    @Test
+    void aBrokenStreakStartsOver() {
+        engine.evaluate(reading("TRUCK-001", 85, 90, 50));
+        engine.evaluate(reading("TRUCK-001", 79, 90, 50));
+
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isZero();
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isEqualTo(SPEEDING);
+    }
+
+    @Test
+    void staysActiveUntilTheClearThresholdIsCrossed() {
+        engine.evaluate(reading("TRUCK-001", 85, 90, 50));
+        engine.evaluate(reading("TRUCK-001", 85, 90, 50));
+
+        // Between clear and raise: still active, so nothing new is raised
+        assertThat(engine.evaluate(reading("TRUCK-001", 78, 90, 50))).isZero();
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isZero();
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isZero();
+
+        // Cleared, then re-armed through the full debounce again
+        assertThat(engine.evaluate(reading("TRUCK-001", 75, 90, 50))).isZero();
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isZero();
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isEqualTo(SPEEDING);
+    }
+
+    @Test
+    void tracksEachRuleInItsOwnBit() {
+        long raised = engine.evaluate(reading("TRUCK-001", 50, 105, 5));
+        assertThat(raised).isEqualTo(OVERHEATING | LOW_FUEL);
+        assertThat(engine.types(raised)).containsExactly("OVERHEATING", "LOW FUEL");
+
+        // Fuel clears at 12 while the engine stays hot; only LOW FUEL re-arms
+        engine.evaluate(reading("TRUCK-001", 50, 105, 12));
+        assertThat(engine.evaluate(reading("TRUCK-001", 50, 105, 5))).isEqualTo(LOW_FUEL);
+    }
+
+    @Test
+    void keepsStatePerTruck() {
+        engine.evaluate(reading("TRUCK-001", 85, 90, 50));
+
+        assertThat(engine.evaluate(reading("TRUCK-002", 85, 90, 50))).isZero();
+        assertThat(engine.evaluate(reading("TRUCK-001", 85, 90, 50))).isEqualTo(SPEEDING);
+    }
+
+    @Test
+    void appliesThresholdOverridesByPrefixAndId() {
+        AlertRuleEngine overridden = new AlertRuleEngine(List.of(new AlertRuleDefinition("SPEEDING", "speed", "above",
+                80, 75.0, 1, List.of(
+                        new AlertRuleDefinition.ThresholdOverride(null, "REEFER-", 70, 65.0),
+                        new AlertRuleDefinition.ThresholdOverride(List.of("TRUCK-009"), null, 90, null)))));
+
+        assertThat(overridden.evaluate(reading("REEFER-1", 72, 90, 50))).isEqualTo(SPEEDING);
+        assertThat(overridden.evaluate(reading("TRUCK-001", 72, 90, 50))).isZero();
+        assertThat(overridden.evaluate(reading("TRUCK-009", 85, 90, 50))).isZero();
+        assertThat(overridden.evaluate(reading("TRUCK-009", 91, 90, 50))).isEqualTo(SPEEDING);
+    }
+
+    @Test
+    void rejectsUnknownMetricsAndConditions() {
+        assertThatThrownBy(() -> new AlertRuleEngine(List.of(
+                new AlertRuleDefinition("X", "altitude", "above", 1, null, null, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AlertRuleEngine(List.of(
+                new AlertRuleDefinition("X", "speed", "equals", 1, null, null, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static TruckTelemetry reading(String truckId, double speed, double engineTemp, double fuelLevel) {
+        return new TruckTelemetry(truckId, 40.7, -74.0, speed, engineTemp, fuelLevel, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,93 @@
+package com.fleetsync.codec;
+
+import com.fleetsync.model.TruckTelemetry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TelemetryCodecTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "TRUCK-001", "TRUCK-7", "TRUCK-000000000000000042", "VAN-12", "TRUCK-A1", "Lkw-Müller", "" })
+    void roundTripsEveryTruckIdForm(String truckId) {
+        TruckTelemetry telemetry = new TruckTelemetry(truckId, 40.712776, -74.005974, 57.25, 92.5, 63.125,
+                1_700_000_000_123L);
+
+        TruckTelemetry decoded = TelemetryCodec.decode(TelemetryCodec.encode(telemetry));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(telemetry);
+    }
+
+    @Test
+    void packsKnownPrefixesMoreTightlyThanInlineIds() {
+        byte[] packed = TelemetryCodec.encode(reading("TRUCK-001"));
+        byte[] inline = TelemetryCodec.encode(reading("TRUCK-A01"));
+
+        assertThat(TelemetryCodec.isBinary(packed)).isTrue();
+        assertThat(packed.length).isLessThan(inline.length);
+    }
+
+    @Test
+    void rejectsEveryTruncationWithIllegalArgument() {
+        for (String truckId : new String[] { "TRUCK-001", "VAN-12" }) {
+            byte[] encoded = TelemetryCodec.encode(reading(truckId));
+            for (int length = 3; length < encoded.length; length++) {
+                byte[] truncated = Arrays.copyOf(encoded, length);
+                assertThatThrownBy(() -> TelemetryCodec.decode(truncated))
+                        .as("%s truncated to %d bytes", truckId, length)
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
+    @Test
+    void rejectsPayloadsThatAreNotBinaryTelemetry() {
+        assertThatThrownBy(() -> TelemetryCodec.decode("{\"truckId\":\"TRUCK-001\"}".getBytes()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TelemetryCodec.decode(new byte[] { TelemetryCodec.MAGIC }))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TelemetryCodec.decode(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndTags() {
+        byte[] encoded = TelemetryCodec.encode(reading("TRUCK-001"));
+
+        byte[] version = encoded.clone();
+        version[1] = 9;
+        assertThatThrownBy(() -> TelemetryCodec.decode(version)).hasMessageContaining("version 9");
+
+        byte[] tag = encoded.clone();
+        tag[2] = 42;
+        assertThatThrownBy(() -> TelemetryCodec.decode(tag)).hasMessageContaining("tag 42");
+    }
+
+    @Test
+    void rejectsInlineIdLengthsBeyondThePayload() {
+        byte[] encoded = TelemetryCodec.encode(reading("VAN-12"));
+        // Inline id length varint follows the tag
+        encoded[3] = 0x7F;
+
+        assertThatThrownBy(() -> TelemetryCodec.decode(encoded)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRunawayVarints() {
+        byte[] encoded = new byte[64];
+        Arrays.fill(encoded, (byte) 0xFF);
+        encoded[0] = TelemetryCodec.MAGIC;
+        encoded[1] = TelemetryCodec.VERSION;
+        encoded[2] = 0;
+
+        assertThatThrownBy(() -> TelemetryCodec.decode(encoded)).hasMessageContaining("Varint");
+    }
+
+    private static TruckTelemetry reading(String truckId) {
+        return new TruckTelemetry(truckId, 40.7, -74.0, 50, 90, 80, 1_700_000_000_000L);
+    }
+}
@@ -0,0 +1,55 @@
+package com.fleetsync.codec;
+
+import com.fleetsync.model.TruckTelemetry;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetryDeserializerTest {
+
+    private static final String TOPIC = "fleet-telemetry";
+
+    @Test
+    void readsBinaryAndJsonTelemetryFromTheSameTopic() {
+        TruckTelemetry telemetry = new TruckTelemetry("TRUCK-001", 40.7, -74.0, 50, 90, 80, 1_700_000_000_000L);
+        byte[] json = ("{\"truckId\":\"TRUCK-001\",\"latitude\":40.7,\"longitude\":-74.0,\"speed\":50,"
+                + "\"engineTemp\":90,\"fuelLevel\":80,\"timestamp\":1700000000000}").getBytes(StandardCharsets.UTF_8);
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("__TypeId__", TruckTelemetry.class.getName().getBytes(StandardCharsets.UTF_8));
+
+        try (TelemetryDeserializer deserializer = new TelemetryDeserializer()) {
+            deserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+            assertThat(deserializer.deserialize(TOPIC, TelemetryCodec.encode(telemetry)))
+                    .usingRecursiveComparison().isEqualTo(telemetry);
+            assertThat(deserializer.deserialize(TOPIC, headers, json))
+                    .usingRecursiveComparison().isEqualTo(telemetry);
+        }
+    }
+
+    @Test
+    void wrappedDeserializerTurnsMalformedRecordsIntoAHeaderInsteadOfThrowing() {
+        byte[] encoded = TelemetryCodec.encode(
+                new TruckTelemetry("TRUCK-001", 40.7, -74.0, 50, 90, 80, 1_700_000_000_000L));
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 5);
+        RecordHeaders headers = new RecordHeaders();
+
+        // Configured the same way as spring.kafka.consumer.* in application.properties
+        try (ErrorHandlingDeserializer<Object> deserializer = new ErrorHandlingDeserializer<>()) {
+            deserializer.configure(Map.of(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS,
+                    TelemetryDeserializer.class.getName(), JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+
+            assertThat(deserializer.deserialize(TOPIC, headers, truncated)).isNull();
+            assertThat(headers.lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER)).isNotNull();
+            assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), encoded)).isInstanceOf(TruckTelemetry.class);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.fleetsync.geofence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleetsync.model.TruckTelemetry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeofenceEngineTest {
+
+    private static final String DEPOT = "{ \"name\": \"Depot\", \"kind\": \"DEPOT\", \"dwellSeconds\": 900, "
+            + "\"polygon\": [ [40.676, -74.018], [40.676, -74.004], [40.668, -74.004], [40.668, -74.018] ] }";
+    private static final String DATELINE = "{ \"name\": \"Dateline\", \"kind\": \"DEPOT\", "
+            + "\"polygon\": [ [0.8, 179.5], [0.8, 180.0], [0.2, 180.0], [0.2, 179.5] ] }";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reportsEnterDwellAndExitOncePerVisit() throws IOException {
+        GeofenceEngine engine = engine(DEPOT);
+
+        assertThat(engine.evaluate(reading(40.700, -74.010, 0))).isEmpty();
+        assertThat(engine.evaluate(reading(40.672, -74.010, 60_000))).containsExactly("GEOFENCE_ENTER (Depot)");
+        assertThat(engine.evaluate(reading(40.671, -74.011, 600_000))).isEmpty();
+        assertThat(engine.evaluate(reading(40.671, -74.011, 960_000))).containsExactly("GEOFENCE_DWELL (Depot)");
+        assertThat(engine.evaluate(reading(40.672, -74.012, 2_000_000))).isEmpty();
+        assertThat(engine.evaluate(reading(40.700, -74.010, 2_060_000))).containsExactly("GEOFENCE_EXIT (Depot)");
+
+        // A new visit starts its own dwell clock
+        assertThat(engine.evaluate(reading(40.672, -74.010, 2_120_000))).containsExactly("GEOFENCE_ENTER (Depot)");
+        assertThat(engine.evaluate(reading(40.672, -74.010, 2_200_000))).isEmpty();
+    }
+
+    @Test
+    void fencesWithoutDwellNeverReportIt() throws IOException {
+        GeofenceEngine engine = engine(DATELINE);
+
+        assertThat(engine.evaluate(reading(0.5, 179.75, 0))).containsExactly("GEOFENCE_ENTER (Dateline)");
+        assertThat(engine.evaluate(reading(0.5, 179.75, 86_400_000))).isEmpty();
+    }
+
+    @Test
+    void longitude180IsEvaluatedAgainstFencesAtTheDateline() throws IOException {
+        GeofenceEngine engine = engine(DATELINE);
+
+        // Exactly on the fence's eastern edge is outside, and must not pick up cells of the next row
+        assertThat(engine.evaluate(reading(0.5, 180.0, 0))).isEmpty();
+        assertThat(engine.evaluate(reading(0.5, 179.99, 1_000))).containsExactly("GEOFENCE_ENTER (Dateline)");
+        assertThat(engine.evaluate(reading(0.5, 180.0, 2_000))).containsExactly("GEOFENCE_EXIT (Dateline)");
+    }
+
+    @Test
+    void aReloadForgetsDeletedFencesWithoutAnExit() throws IOException {
+        GeofenceEngine engine = engine(DEPOT);
+        engine.evaluate(reading(40.672, -74.010, 0));
+
+        write(DATELINE);
+        assertThat(engine.reload()).isTrue();
+
+        assertThat(engine.evaluate(reading(40.700, -74.010, 60_000))).isEmpty();
+        assertThat(engine.getDefinitions()).extracting(GeofenceDefinition::name).containsExactly("Dateline");
+    }
+
+    @Test
+    void aBrokenFileKeepsTheCurrentFences() throws IOException {
+        GeofenceEngine engine = engine(DEPOT);
+
+        Files.writeString(dir.resolve("geofences.json"), "{ \"fences\": [ { \"name\": \"Bad\" } ] }");
+        assertThat(engine.reload()).isFalse();
+
+        assertThat(engine.evaluate(reading(40.672, -74.010, 0))).containsExactly("GEOFENCE_ENTER (Depot)");
+    }
+
+    private GeofenceEngine engine(String fence) throws IOException {
+        write(fence);
+        return new GeofenceEngine(new ObjectMapper(), new FileSystemResource(dir.resolve("geofences.json")), 0.01);
+    }
+
+    private void write(String fence) throws IOException {
+        Files.writeString(dir.resolve("geofences.json"), "{ \"fences\": [ " + fence + " ] }");
+    }
+
+    private static TruckTelemetry reading(double latitude, double longitude, long timestamp) {
+        return new TruckTelemetry("TRUCK-001", latitude, longitude, 30, 90, 60, timestamp);
+    }
+}
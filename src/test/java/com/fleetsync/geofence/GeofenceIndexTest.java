@@ -0,0 +1,59 @@
+package com.fleetsync.geofence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeofenceIndexTest {
+
+    @Test
+    void findsFencesThroughTheirGridCells() {
+        GeofenceIndex index = new GeofenceIndex(List.of(square("Depot", 40.668, -74.018, 40.676, -74.004)), 0.01);
+        int depot = index.indexOf("Depot");
+
+        assertThat(index.candidates(40.672, -74.010)).containsExactly(depot);
+        assertThat(index.contains(depot, 40.672, -74.010)).isTrue();
+        assertThat(index.candidates(40.700, -74.010)).isEmpty();
+        assertThat(index.largeFences()).isEmpty();
+    }
+
+    @Test
+    void longitude180StaysInItsOwnRow() {
+        // With 1° cells, column 360 would alias to column 0 of the next row up
+        GeofenceIndex index = new GeofenceIndex(List.of(
+                square("Dateline", 0.2, 179.5, 0.8, 180.0),
+                square("West Edge", 1.2, -179.8, 1.8, -179.2)), 1.0);
+
+        assertThat(index.candidates(0.5, 180.0)).containsExactly(index.indexOf("Dateline"));
+        assertThat(index.candidates(1.5, -179.5)).containsExactly(index.indexOf("West Edge"));
+        assertThat(index.contains(index.indexOf("Dateline"), 0.5, 179.75)).isTrue();
+    }
+
+    @Test
+    void keepsFencesSpanningTooManyCellsOnTheLargeList() {
+        GeofenceIndex index = new GeofenceIndex(List.of(square("State", 40.0, -80.0, 45.0, -72.0)), 0.01);
+
+        assertThat(index.largeFences()).containsExactly(0);
+        assertThat(index.cellCount()).isZero();
+        assertThat(index.contains(0, 42.0, -75.0)).isTrue();
+    }
+
+    @Test
+    void rejectsInvalidFences() {
+        assertThatThrownBy(() -> new GeofenceIndex(List.of(square("A, B", 0, 0, 1, 1)), 0.01))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new GeofenceIndex(List.of(square("A", 0, 0, 1, 1), square("A", 2, 2, 3, 3)), 0.01))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new GeofenceIndex(List.of(new GeofenceDefinition("A", null,
+                List.of(new double[] { 0, 0 }, new double[] { 1, 1 }), null)), 0.01))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static GeofenceDefinition square(String name, double minLat, double minLon, double maxLat, double maxLon) {
+        return new GeofenceDefinition(name, "DEPOT", List.of(new double[] { maxLat, minLon },
+                new double[] { maxLat, maxLon }, new double[] { minLat, maxLon }, new double[] { minLat, minLon }), null);
+    }
+}
@@ -0,0 +1,142 @@
+package com.fleetsync.ingest;
+
+import com.fleetsync.codec.TelemetryCodec;
+import com.fleetsync.codec.TelemetrySerializer;
+import com.fleetsync.metrics.PipelineMetrics;
+import com.fleetsync.model.TruckTelemetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetryPublisherTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    // KafkaTemplate closes a producer after each send unless the factory shares it
+    private final MockProducer<String, Object> producer = new MockProducer<>(false, new StringSerializer(),
+            new TelemetrySerializer()) {
+        @Override
+        public void close(Duration timeout) {
+        }
+    };
+    private TelemetryPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    void failedDirectSendIsReplayedAheadOfReadingsSpooledAfterIt() throws Exception {
+        publisher = start(1);
+
+        publisher.publish(reading(1));
+        // The only slot is taken, so the next reading is spooled while the first is still in flight
+        publisher.publish(reading(2));
+        assertThat(publisher.getSpoolDepth()).isEqualTo(1);
+
+        producer.errorNext(new TimeoutException("expired"));
+        awaitSends(2);
+        producer.completeNext();
+        awaitSends(3);
+        producer.completeNext();
+        await(() -> publisher.getSpoolDepth() == 0);
+
+        assertThat(sentTimestamps()).containsExactly(1L, 1L, 2L);
+    }
+
+    @Test
+    void resendsOnlyTheRecordsOfABatchWhoseSendFailed() throws Exception {
+        try (TelemetrySpool spool = new TelemetrySpool(spoolDirectory, 1 << 16, 1 << 20)) {
+            for (long timestamp = 1; timestamp <= 3; timestamp++) {
+                spool.append(TelemetryCodec.encode(reading(timestamp)));
+            }
+        }
+        publisher = start(10);
+
+        awaitSends(3);
+        producer.completeNext();
+        producer.errorNext(new TimeoutException("expired"));
+        producer.completeNext();
+        awaitSends(4);
+        producer.completeNext();
+        await(() -> publisher.getSpoolDepth() == 0);
+
+        assertThat(sentTimestamps()).containsExactly(1L, 2L, 3L, 2L);
+        assertThat(publisher.getDrained()).isEqualTo(3);
+    }
+
+    @Test
+    void sendsDirectlyWhileNothingIsSpooled() throws Exception {
+        publisher = start(10);
+
+        publisher.publish(reading(1));
+        publisher.publish(reading(2));
+        producer.completeNext();
+        producer.completeNext();
+
+        assertThat(publisher.getSpooled()).isZero();
+        assertThat(sentTimestamps()).containsExactly(1L, 2L);
+    }
+
+    private TelemetryPublisher start(int maxInFlight) {
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(Map.of()) {
+            @Override
+            public ProducerFactory<String, Object> copyWithConfigurationOverride(Map<String, Object> overrides) {
+                return this;
+            }
+
+            @Override
+            public Producer<String, Object> createProducer() {
+                return producer;
+            }
+        };
+        TelemetryPublisher started = new TelemetryPublisher(factory, new PipelineMetrics(new SimpleMeterRegistry()),
+                new SimpleMeterRegistry(), 50, 10_000, 30_000, maxInFlight, true, spoolDirectory.toString(), 1 << 16,
+                1 << 20, 500);
+        started.start();
+        return started;
+    }
+
+    private List<Long> sentTimestamps() {
+        return producer.history().stream()
+                .map(ProducerRecord::value)
+                .map(value -> ((TruckTelemetry) value).getTimestamp())
+                .toList();
+    }
+
+    private void awaitSends(int count) throws InterruptedException {
+        await(() -> producer.history().size() >= count);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met within 10s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static TruckTelemetry reading(long timestamp) {
+        return new TruckTelemetry("TRUCK-001", 40.7, -74.0, 50, 90, 80, timestamp);
+    }
+}
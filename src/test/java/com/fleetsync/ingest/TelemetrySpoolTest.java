@@ -0,0 +1,91 @@
+package com.fleetsync.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetrySpoolTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysOnlyUncommittedRecordsAfterARestart() throws IOException {
+        try (TelemetrySpool spool = new TelemetrySpool(dir, 4096, 1 << 20)) {
+            append(spool, 0, 10);
+            spool.commit(spool.read(4));
+        }
+
+        try (TelemetrySpool spool = new TelemetrySpool(dir, 4096, 1 << 20)) {
+            assertThat(spool.depth()).isEqualTo(6);
+            assertThat(drain(spool)).containsExactly("r4", "r5", "r6", "r7", "r8", "r9");
+            assertThat(spool.isEmpty()).isTrue();
+        }
+    }
+
+    @Test
+    void keepsAppendingAfterARestartWithLargerSegments() throws IOException {
+        try (TelemetrySpool spool = new TelemetrySpool(dir, 64, 1 << 20)) {
+            append(spool, 0, 3);
+        }
+
+        // The recovered 64-byte segment must not be written as if it were 4096 bytes long
+        try (TelemetrySpool spool = new TelemetrySpool(dir, 4096, 1 << 20)) {
+            append(spool, 3, 50);
+            assertThat(spool.sizeBytes()).isEqualTo(64 + 4096);
+            assertThat(drain(spool)).hasSize(50).startsWith("r0", "r1", "r2", "r3").endsWith("r49");
+        }
+    }
+
+    @Test
+    void fillsARecoveredLargerSegmentBeforeCreatingSmallerOnes() throws IOException {
+        try (TelemetrySpool spool = new TelemetrySpool(dir, 4096, 1 << 20)) {
+            append(spool, 0, 1);
+        }
+
+        try (TelemetrySpool spool = new TelemetrySpool(dir, 64, 1 << 20)) {
+            append(spool, 1, 100);
+            assertThat(spool.sizeBytes()).isEqualTo(4096);
+            assertThat(drain(spool)).hasSize(100).startsWith("r0", "r1").endsWith("r99");
+        }
+    }
+
+    @Test
+    void refusesRecordsBeyondTheSizeLimit() throws IOException {
+        try (TelemetrySpool spool = new TelemetrySpool(dir, 64, 128)) {
+            int appended = 0;
+            while (spool.append(("r" + appended).getBytes(StandardCharsets.UTF_8))) {
+                appended++;
+            }
+
+            assertThat(spool.sizeBytes()).isEqualTo(128);
+            assertThat(spool.depth()).isEqualTo(appended);
+            assertThat(spool.append(new byte[100])).isFalse();
+        }
+    }
+
+    private static void append(TelemetrySpool spool, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            assertThat(spool.append(("r" + i).getBytes(StandardCharsets.UTF_8))).isTrue();
+        }
+    }
+
+    private static List<String> drain(TelemetrySpool spool) throws IOException {
+        List<String> drained = new ArrayList<>();
+        TelemetrySpool.Batch batch;
+        while ((batch = spool.read(7)) != null) {
+            for (byte[] record : batch.records()) {
+                drained.add(new String(record, StandardCharsets.UTF_8));
+            }
+            spool.commit(batch);
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,198 @@
+package com.fleetsync.service;
+
+import com.fleetsync.metrics.PipelineMetrics;
+import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.repository.TelemetryJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatabaseConsumerServiceTest {
+
+    private static final String TOPIC = "fleet-telemetry";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(TOPIC, 1);
+
+    private final TelemetryJdbcRepository repository = mock(TelemetryJdbcRepository.class);
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+    private final ConsumerSeekCallback callback = mock(ConsumerSeekCallback.class);
+    private final Consumer<?, ?> consumer = mock(Consumer.class);
+    private DatabaseConsumerService service;
+
+    @BeforeEach
+    void setUp() {
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(anyString())).thenReturn(container);
+        service = new DatabaseConsumerService(repository, new PipelineMetrics(new SimpleMeterRegistry()), registry,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void seeksToStoredOffsetsOnAssignment() {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC)).thenReturn(Map.of(0, 42L));
+
+        service.onPartitionsAssigned(Map.of(P0, 0L, P1, 0L), callback);
+
+        verify(callback).seek(TOPIC, 0, 42L);
+        verify(callback, never()).seek(eq(TOPIC), eq(1), anyLong());
+    }
+
+    @Test
+    void skipsRecordsAlreadyInTheDatabaseAndCommitsTheNextOffset() {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC)).thenReturn(Map.of(0, 42L));
+        service.onPartitionsAssigned(Map.of(P0, 0L), callback);
+
+        service.saveTelemetry(records(0, 40, 45), consumer);
+
+        List<TruckTelemetry> written = capturedBatch(0, 45);
+        assertThat(written).extracting(TruckTelemetry::getTimestamp).containsExactly(42L, 43L, 44L);
+        assertThat(service.getDuplicatesSkipped()).isEqualTo(2);
+        verify(consumer).commitAsync(Map.of(P0, new OffsetAndMetadata(45)), null);
+    }
+
+    @Test
+    void rewindsAndPausesOnlyThePartitionWhoseWriteFailed() {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC)).thenReturn(Map.of(0, 42L, 1, 7L));
+        service.onPartitionsAssigned(Map.of(P0, 0L, P1, 0L), callback);
+        doThrow(new DataAccessResourceFailureException("down")).when(repository)
+                .insertBatch(anyList(), anyString(), anyString(), eq(0), anyLong());
+
+        List<ConsumerRecord<String, TruckTelemetry>> records = new ArrayList<>(records(0, 40, 45));
+        records.addAll(records(1, 7, 9));
+        service.saveTelemetry(records, consumer);
+
+        // Rewound to the first record the database doesn't have, not the first one fetched
+        verify(consumer).seek(P0, 42);
+        verify(container).pausePartition(P0);
+        verify(container, never()).pausePartition(P1);
+        assertThat(service.getRetryingPartitions()).containsExactly(P0.toString());
+        verify(consumer).commitAsync(Map.of(P1, new OffsetAndMetadata(9)), null);
+    }
+
+    @Test
+    void resumesAPausedPartitionOnceItsBackoffHasPassed() throws InterruptedException {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC)).thenReturn(Map.of());
+        service.onPartitionsAssigned(Map.of(P0, 0L), callback);
+        doThrow(new DataAccessResourceFailureException("down")).when(repository)
+                .insertBatch(anyList(), anyString(), anyString(), anyInt(), anyLong());
+        service.saveTelemetry(records(0, 0, 3), consumer);
+        when(container.isPartitionPauseRequested(P0)).thenReturn(true);
+
+        service.resumeDuePartitions();
+        verify(container, never()).resumePartition(P0);
+
+        Thread.sleep(600);
+        service.resumeDuePartitions();
+        verify(container).resumePartition(P0);
+        // Still retrying until a write succeeds
+        assertThat(service.getRetryingPartitions()).containsExactly(P0.toString());
+    }
+
+    @Test
+    void clearsTheRetryOnceTheRewoundRecordsAreWritten() {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC)).thenReturn(Map.of());
+        service.onPartitionsAssigned(Map.of(P0, 0L), callback);
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(repository)
+                .insertBatch(anyList(), anyString(), anyString(), anyInt(), anyLong());
+
+        service.saveTelemetry(records(0, 0, 3), consumer);
+        service.saveTelemetry(records(0, 0, 3), consumer);
+
+        assertThat(service.getRetryingPartitions()).isEmpty();
+        assertThat(service.getRowsWritten()).isEqualTo(3);
+        verify(consumer).commitAsync(Map.of(P0, new OffsetAndMetadata(3)), null);
+    }
+
+    @Test
+    void revokingAPausedPartitionResumesItAndForgetsItsOffset() {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC)).thenReturn(Map.of());
+        service.onPartitionsAssigned(Map.of(P0, 0L), callback);
+        doThrow(new DataAccessResourceFailureException("down")).when(repository)
+                .insertBatch(anyList(), anyString(), anyString(), anyInt(), anyLong());
+        service.saveTelemetry(records(0, 0, 3), consumer);
+
+        service.onPartitionsRevoked(List.of(P0));
+
+        verify(container).resumePartition(P0);
+        assertThat(service.getRetryingPartitions()).isEmpty();
+
+        // If this node gets the partition back, its offset is read again first
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC)).thenReturn(Map.of(0, 2L));
+        service.saveTelemetry(records(0, 0, 3), consumer);
+        assertThat(service.getDuplicatesSkipped()).isEqualTo(2);
+    }
+
+    @Test
+    void readsStoredOffsetsBeforeTheFirstWriteWhenAssignmentCouldNot() {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(Map.of(0, 100L));
+        service.onPartitionsAssigned(Map.of(P0, 0L), callback);
+        verify(callback, never()).seek(anyString(), anyInt(), anyLong());
+
+        // Kafka's committed position is behind the database: move to the stored offset instead of writing
+        service.saveTelemetry(records(0, 40, 45), consumer);
+
+        verify(consumer).seek(P0, 100);
+        verify(repository, never()).insertBatch(anyList(), anyString(), anyString(), anyInt(), anyLong());
+        verify(consumer, never()).commitAsync(anyMap(), any());
+    }
+
+    @Test
+    void pausesThePartitionWhenItsStoredOffsetStillCannotBeRead() {
+        when(repository.findSinkOffsets(DatabaseConsumerService.GROUP_ID, TOPIC))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        service.onPartitionsAssigned(Map.of(P0, 0L), callback);
+
+        service.saveTelemetry(records(0, 40, 45), consumer);
+
+        verify(consumer).seek(P0, 40);
+        verify(container).pausePartition(P0);
+        verify(repository, never()).insertBatch(anyList(), anyString(), anyString(), anyInt(), anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TruckTelemetry> capturedBatch(int partition, long nextOffset) {
+        ArgumentCaptor<List<TruckTelemetry>> batch = ArgumentCaptor.forClass(List.class);
+        verify(repository).insertBatch(batch.capture(), eq(DatabaseConsumerService.GROUP_ID), eq(TOPIC),
+                eq(partition), eq(nextOffset));
+        return batch.getValue();
+    }
+
+    // Records [from, to) of one partition; each reading's timestamp is its offset
+    private static List<ConsumerRecord<String, TruckTelemetry>> records(int partition, long from, long to) {
+        List<ConsumerRecord<String, TruckTelemetry>> records = new ArrayList<>();
+        for (long offset = from; offset < to; offset++) {
+            TruckTelemetry telemetry = new TruckTelemetry("TRUCK-" + partition, 40.7, -74.0, 50, 90, 80, offset);
+            records.add(new ConsumerRecord<>(TOPIC, partition, offset, telemetry.getTruckId(), telemetry));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,80 @@
+package com.fleetsync.service;
+
+import com.fleetsync.model.TruckTelemetry;
+import com.fleetsync.stats.WindowResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class WindowedAnalyticsServiceTest {
+
+    private static final long MINUTE = 60_000;
+
+    private WindowedAnalyticsService service;
+    private long base;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        // 1-minute panes, 5-minute sliding and 10-minute tumbling windows, 30s lateness
+        service = new WindowedAnalyticsService(mock(KafkaTemplate.class), new SimpleMeterRegistry(),
+                60, 5, 10, 30, 24, 3600, 60);
+        service.onPartitionsAssigned(Map.of(new TopicPartition("fleet-telemetry", 0), 0L,
+                new TopicPartition("fleet-telemetry", 1), 0L), null);
+        base = Math.floorDiv(System.currentTimeMillis() - 3 * 60 * MINUTE, 10 * MINUTE) * 10 * MINUTE;
+    }
+
+    @Test
+    void truckOnAnUpToDatePartitionKeepsEveryReadingWhileAnotherPartitionLags() {
+        long lag = 15 * MINUTE;
+        long perTruck = 0;
+        // TRUCK-A on partition 0 runs 15 minutes ahead of TRUCK-B on the lagging partition 1
+        for (long t = base; t < base + 60 * MINUTE; t += 10_000) {
+            service.consumeTelemetry(reading("TRUCK-A", t), 0);
+            service.consumeTelemetry(reading("TRUCK-B", t - lag), 1);
+            perTruck++;
+        }
+
+        assertThat(service.getLateDropped()).isZero();
+        assertThat(service.getAheadDropped()).isZero();
+        // Every tumbling window TRUCK-A has closed holds all of its readings
+        List<WindowResult> truckA = service.getTumblingHistory("TRUCK-A");
+        assertThat(truckA).hasSize(5);
+        assertThat(truckA).allSatisfy(window -> assertThat(window.count()).isEqualTo(60));
+        // The lagging partition's trucks close windows at their own pace
+        List<WindowResult> truckB = service.getTumblingHistory("TRUCK-B");
+        assertThat(truckB).hasSize(6);
+        assertThat(truckB.get(5).windowStart()).isEqualTo(base - 20 * MINUTE);
+        assertThat(truckB.get(5).count()).isEqualTo(30);
+        assertThat(truckB.subList(0, 5)).allSatisfy(window -> assertThat(window.count()).isEqualTo(60));
+        assertThat(perTruck).isEqualTo(360);
+    }
+
+    @Test
+    void fleetWatermarkTrailsTheSlowestPartition() {
+        service.consumeTelemetry(reading("TRUCK-A", base + 20 * MINUTE), 0);
+        service.consumeTelemetry(reading("TRUCK-B", base), 1);
+
+        assertThat(service.getWatermark()).isEqualTo(base - 30_000);
+    }
+
+    @Test
+    void ignoresReadingsStampedFarAheadOfTheWallClock() {
+        service.consumeTelemetry(reading("TRUCK-A", System.currentTimeMillis() + 10 * MINUTE), 0);
+
+        assertThat(service.getFutureDropped()).isEqualTo(1);
+        assertThat(service.getTrackedTrucks()).isZero();
+    }
+
+    private static TruckTelemetry reading(String truckId, long timestamp) {
+        return new TruckTelemetry(truckId, 40.7, -74.0, 50, 90, 80, timestamp);
+    }
+}
@@ -0,0 +1,109 @@
+package com.fleetsync.state;
+
+import com.fleetsync.model.TruckTelemetry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveFleetStoreTest {
+
+    @Test
+    void returnsThePreviousReadingOnEachUpdate() {
+        LiveFleetStore store = new LiveFleetStore();
+
+        assertThat(store.update(reading("TRUCK-001", 1))).isNull();
+        TruckTelemetry previous = store.update(reading("TRUCK-001", 2));
+
+        assertThat(previous.getTimestamp()).isEqualTo(1);
+        assertThat(store.get("TRUCK-001").getTimestamp()).isEqualTo(2);
+        assertThat(store.get("TRUCK-002")).isNull();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresReadingsOlderThanTheStoredOne() {
+        LiveFleetStore store = new LiveFleetStore();
+        store.update(reading("TRUCK-001", 100));
+
+        TruckTelemetry stale = reading("TRUCK-001", 99);
+        assertThat(store.update(stale)).isSameAs(stale);
+        assertThat(store.get("TRUCK-001").getTimestamp()).isEqualTo(100);
+
+        // The slot's write lock was released: later readings still land
+        assertThat(store.update(reading("TRUCK-001", 101)).getTimestamp()).isEqualTo(100);
+        assertThat(store.get("TRUCK-001").getTimestamp()).isEqualTo(101);
+    }
+
+    @Test
+    void snapshotAndForEachSeeEveryReportedTruck() {
+        LiveFleetStore store = new LiveFleetStore();
+        for (int i = 0; i < 5; i++) {
+            store.update(reading("TRUCK-" + i, i + 1));
+        }
+
+        List<String> visited = new ArrayList<>();
+        store.forEach((truckId, latitude, longitude, speed, engineTemp, fuelLevel, timestamp) -> {
+            assertThat(latitude).isEqualTo((double) timestamp);
+            visited.add(truckId);
+        });
+
+        assertThat(store.snapshot()).hasSize(5).containsKeys("TRUCK-0", "TRUCK-4");
+        assertThat(visited).containsExactly("TRUCK-0", "TRUCK-1", "TRUCK-2", "TRUCK-3", "TRUCK-4");
+    }
+
+    @Test
+    void readersRacingWritersNeverSeeATornReading() throws InterruptedException {
+        LiveFleetStore store = new LiveFleetStore();
+        store.update(reading("TRUCK-001", 1));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> torn = new AtomicReference<>();
+
+        // Two writers on one truck, as during a rebalance; every field of a reading carries the same value
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            threads.add(new Thread(() -> {
+                for (long n = 2; running.get(); n++) {
+                    store.update(reading("TRUCK-001", n));
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            while (running.get()) {
+                check(store.get("TRUCK-001"), torn);
+            }
+        }));
+        threads.add(new Thread(() -> {
+            while (running.get()) {
+                store.forEach((truckId, latitude, longitude, speed, engineTemp, fuelLevel, timestamp) -> check(
+                        new TruckTelemetry(truckId, latitude, longitude, speed, engineTemp, fuelLevel, timestamp), torn));
+            }
+        }));
+
+        threads.forEach(Thread::start);
+        Thread.sleep(500);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(torn.get()).isNull();
+        assertThat(store.get("TRUCK-001").getTimestamp()).isGreaterThan(1);
+    }
+
+    private static void check(TruckTelemetry telemetry, AtomicReference<String> torn) {
+        double value = telemetry.getTimestamp();
+        if (telemetry.getLatitude() != value || telemetry.getLongitude() != value || telemetry.getSpeed() != value
+                || telemetry.getEngineTemp() != value || telemetry.getFuelLevel() != value) {
+            torn.compareAndSet(null, "Torn reading at timestamp " + telemetry.getTimestamp());
+        }
+    }
+
+    private static TruckTelemetry reading(String truckId, long n) {
+        return new TruckTelemetry(truckId, n, n, n, n, n, n);
+    }
+}
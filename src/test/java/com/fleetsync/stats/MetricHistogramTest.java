@@ -0,0 +1,81 @@
+package com.fleetsync.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MetricHistogramTest {
+
+    @Test
+    void reportsExactExtremesAndBinAccuratePercentiles() {
+        MetricHistogram histogram = new MetricHistogram(0, 200, 0.1);
+        for (int i = 1; i <= 100; i++) {
+            histogram.add(i + 0.03);
+        }
+
+        MetricHistogram.Summary summary = histogram.summary();
+        assertThat(summary.count()).isEqualTo(100);
+        assertThat(summary.min()).isEqualTo(1.03);
+        assertThat(summary.max()).isEqualTo(100.03);
+        assertThat(summary.average()).isCloseTo(50.53, within(1e-9));
+        assertThat(summary.p50()).isCloseTo(50.05, within(1e-9));
+        assertThat(summary.p99()).isCloseTo(99.05, within(1e-9));
+    }
+
+    @Test
+    void fallsBackToTheBinEdgeOnceAnExtremeIsRemoved() {
+        MetricHistogram histogram = new MetricHistogram(0, 200, 0.1);
+        histogram.add(10.03);
+        histogram.add(20.07);
+        histogram.add(30.04);
+
+        histogram.remove(10.03);
+        histogram.remove(30.04);
+        MetricHistogram.Summary summary = histogram.summary();
+        assertThat(summary.min()).isCloseTo(20.0, within(1e-9));
+        assertThat(summary.max()).isCloseTo(20.1, within(1e-9));
+
+        // A new extreme beyond the edge is exact again
+        histogram.add(5.55);
+        histogram.add(40.44);
+        summary = histogram.summary();
+        assertThat(summary.min()).isEqualTo(5.55);
+        assertThat(summary.max()).isEqualTo(40.44);
+    }
+
+    @Test
+    void keepsOutOfRangeExtremesExact() {
+        MetricHistogram histogram = new MetricHistogram(0, 200, 0.1);
+        histogram.add(-3);
+        histogram.add(250);
+
+        MetricHistogram.Summary summary = histogram.summary();
+        assertThat(summary.min()).isEqualTo(-3);
+        assertThat(summary.max()).isEqualTo(250);
+    }
+
+    @Test
+    void mergesExtremes() {
+        MetricHistogram a = new MetricHistogram(0, 200, 0.1);
+        MetricHistogram b = new MetricHistogram(0, 200, 0.1);
+        a.add(12.34);
+        b.add(3.21);
+        b.add(99.99);
+
+        a.merge(b);
+        MetricHistogram.Summary summary = a.summary();
+        assertThat(summary.count()).isEqualTo(3);
+        assertThat(summary.min()).isEqualTo(3.21);
+        assertThat(summary.max()).isEqualTo(99.99);
+    }
+
+    @Test
+    void emptyHistogramSummarisesToZeros() {
+        MetricHistogram histogram = new MetricHistogram(0, 200, 0.1);
+        histogram.add(5);
+        histogram.remove(5);
+
+        assertThat(histogram.summary()).isEqualTo(new MetricHistogram.Summary(0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0));
+    }
+}
@@ -0,0 +1,83 @@
+package com.fleetsync.stats;
+
+import com.fleetsync.model.TruckTelemetry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TruckWindowsTest {
+
+    private static final long MINUTE = 60_000;
+
+    // 1-minute panes, 5-minute sliding and 10-minute tumbling windows, 30s lateness
+    private final TruckWindows.Spec spec = new TruckWindows.Spec(MINUTE, 5, 10 * MINUTE, 30_000, 24);
+
+    @Test
+    void closesSlidingAndTumblingWindowsOnceTheWatermarkPassesThem() {
+        TruckWindows windows = new TruckWindows("T1", spec, 0);
+        List<WindowResult> out = new ArrayList<>();
+        for (long t = 0; t < 10 * MINUTE; t += 10_000) {
+            windows.advance(t - spec.allowedLatenessMillis(), out::add);
+            assertThat(windows.add(reading(t))).isEqualTo(TruckWindows.Admission.ADDED);
+        }
+        windows.advance(10 * MINUTE, out::add);
+
+        WindowResult tumbling = windows.getTumblingHistory().get(0);
+        assertThat(tumbling.windowStart()).isZero();
+        assertThat(tumbling.count()).isEqualTo(60);
+        assertThat(windows.getLatestSliding().windowStart()).isEqualTo(5 * MINUTE);
+        assertThat(windows.getLatestSliding().count()).isEqualTo(30);
+        assertThat(out).filteredOn(result -> result.window().startsWith("sliding")).hasSize(10);
+    }
+
+    @Test
+    void rejectsReadingsForClosedPanesAsLate() {
+        TruckWindows windows = new TruckWindows("T1", spec, 0);
+        windows.advance(3 * MINUTE, result -> {
+        });
+        assertThat(windows.add(reading(2 * MINUTE + 59_000))).isEqualTo(TruckWindows.Admission.LATE);
+        assertThat(windows.add(reading(3 * MINUTE))).isEqualTo(TruckWindows.Admission.ADDED);
+    }
+
+    @Test
+    void refusesReadingsTooFarAheadInsteadOfRecyclingOpenWindows() {
+        TruckWindows windows = new TruckWindows("T1", spec, 0);
+        assertThat(windows.add(reading(0))).isEqualTo(TruckWindows.Admission.ADDED);
+
+        // The pane ring has 8 slots: panes up to 3 minutes ahead of the watermark fit
+        assertThat(windows.add(reading(3 * MINUTE + 59_000))).isEqualTo(TruckWindows.Admission.ADDED);
+        // Minute 8 would share a slot with minute 0, which a pending sliding window still needs
+        assertThat(windows.add(reading(8 * MINUTE))).isEqualTo(TruckWindows.Admission.AHEAD);
+        // The tumbling ring has 3 slots; minute 30 would recycle the open window at minute 0
+        assertThat(windows.add(reading(30 * MINUTE))).isEqualTo(TruckWindows.Admission.AHEAD);
+
+        windows.advance(10 * MINUTE, result -> {
+        });
+        assertThat(windows.getTumblingHistory().get(0).count()).isEqualTo(2);
+    }
+
+    @Test
+    void reusesRingSlotsAcrossManyWindowsWithoutLosingReadings() {
+        TruckWindows windows = new TruckWindows("T1", spec, 0);
+        long readings = 0;
+        for (long t = 0; t < 120 * MINUTE; t += 15_000) {
+            windows.advance(t - spec.allowedLatenessMillis(), result -> {
+            });
+            assertThat(windows.add(reading(t))).isEqualTo(TruckWindows.Admission.ADDED);
+            readings++;
+        }
+        windows.advance(120 * MINUTE, result -> {
+        });
+
+        List<WindowResult> history = windows.getTumblingHistory();
+        assertThat(history).hasSize(12);
+        assertThat(history.stream().mapToLong(WindowResult::count).sum()).isEqualTo(readings);
+    }
+
+    private static TruckTelemetry reading(long timestamp) {
+        return new TruckTelemetry("T1", 40.7, -74.0, 50, 90, 80, timestamp);
+    }
+}